@@ -0,0 +1,13 @@
+package com.booktracker.cache;
+
+/**
+ * Снимок счётчиков кэша.
+ */
+public record CacheStats(String name, long hits, long misses, long loads, long loadFailures,
+                         long evictions, long invalidations, int size, long weight, long maxWeight) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,337 @@
+package com.booktracker.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Ограниченный read-through кэш в памяти с политикой в духе W-TinyLFU.
+ * <ul>
+ *     <li>новые записи попадают в маленькое LRU-окно (1% веса), вытесненные из окна соревнуются
+ *     с жертвой основного LRU по оценке частоты из {@link FrequencySketch};</li>
+ *     <li>размер ограничен суммарным весом записей ({@code weigher});</li>
+ *     <li>у каждой записи свой срок жизни (TTL);</li>
+ *     <li>одновременные промахи по одному ключу выполняют одну загрузку;</li>
+ *     <li>invalidate отменяет результат загрузки, начатой до инвалидации.</li>
+ * </ul>
+ * Чтения идут без блокировки; обновление порядка доступа выполняется, только если блокировка свободна.
+ */
+public class LocalCache<K, V> {
+
+    private final String name;
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final Duration ttl;
+    private final ToIntFunction<V> weigher;
+    private final Clock clock;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LinkedHashMap<K, Node<K, V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<K, V>> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long windowWeight;
+    private long mainWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public LocalCache(String name, long maxWeight, Duration ttl, ToIntFunction<V> weigher) {
+        this(name, maxWeight, ttl, weigher, Clock.systemUTC());
+    }
+
+    LocalCache(String name, long maxWeight, Duration ttl, ToIntFunction<V> weigher, Clock clock) {
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.windowMaxWeight = Math.max(1, maxWeight / 100);
+        this.ttl = ttl;
+        this.weigher = weigher;
+        this.clock = clock;
+        this.sketch = new FrequencySketch(Math.max(1024, maxWeight / 64));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Возвращает значение из кэша или загружает его. Исключение загрузчика пробрасывается как есть
+     * (RuntimeException) и не кэшируется.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Node<K, V> node = data.get(key);
+        long now = clock.millis();
+        if (node != null && node.expiresAt > now) {
+            hits.increment();
+            recordAccess(node);
+            return node.value;
+        }
+        misses.increment();
+        if (node != null) {
+            remove(key, node);
+        }
+
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            loads.increment();
+            V value = loader.apply(key);
+            // Если за время загрузки ключ инвалидировали, результат отдаётся, но не кэшируется
+            if (value != null) {
+                putIfCurrent(key, value, own);
+            }
+            own.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Пакетный вариант {@link #get}: попадания отдаются из кэша, промахи, которые никто не загружает,
+     * загружаются одним вызовом {@code batchLoader}, а ключи, уже загружаемые другими потоками, ожидаются.
+     * Ключей, для которых загрузчик ничего не вернул, в результате нет.
+     *
+     * @return значения в порядке {@code keys}
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<? super Set<K>, Map<K, V>> batchLoader) {
+        Map<K, CompletableFuture<V>> values = new HashMap<>();
+        Map<K, CompletableFuture<V>> own = new LinkedHashMap<>();
+        long now = clock.millis();
+        for (K key : keys) {
+            if (values.containsKey(key)) {
+                continue;
+            }
+            Node<K, V> node = data.get(key);
+            if (node != null && node.expiresAt > now) {
+                hits.increment();
+                recordAccess(node);
+                values.put(key, CompletableFuture.completedFuture(node.value));
+                continue;
+            }
+            misses.increment();
+            if (node != null) {
+                remove(key, node);
+            }
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+            if (existing == null) {
+                own.put(key, future);
+            }
+            values.put(key, existing != null ? existing : future);
+        }
+
+        if (!own.isEmpty()) {
+            try {
+                loads.increment();
+                Map<K, V> loaded = batchLoader.apply(Collections.unmodifiableSet(own.keySet()));
+                own.forEach((key, future) -> {
+                    V value = loaded.get(key);
+                    if (value != null) {
+                        putIfCurrent(key, value, future);
+                    }
+                    future.complete(value);
+                });
+            } catch (RuntimeException e) {
+                loadFailures.increment();
+                own.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                own.forEach(inFlight::remove);
+            }
+        }
+
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            V value = join(values.get(key));
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    public void invalidate(K key) {
+        evictionLock.lock();
+        try {
+            inFlight.remove(key);
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+                invalidations.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateIf(Predicate<? super V> predicate) {
+        for (Map.Entry<K, Node<K, V>> entry : data.entrySet()) {
+            if (predicate.test(entry.getValue().value)) {
+                invalidate(entry.getKey());
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            inFlight.clear();
+            invalidations.add(data.size());
+            data.clear();
+            window.clear();
+            main.clear();
+            windowWeight = 0;
+            mainWeight = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(name, hits.sum(), misses.sum(), loads.sum(), loadFailures.sum(),
+                evictions.sum(), invalidations.sum(), data.size(), windowWeight + mainWeight, maxWeight);
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void recordAccess(Node<K, V> node) {
+        if (!evictionLock.tryLock()) {
+            return; // доступ теряется, как в буфере чтения Caffeine: на точность политики это почти не влияет
+        }
+        try {
+            sketch.increment(node.key);
+            if (node.inWindow) {
+                window.get(node.key);
+            } else {
+                main.get(node.key);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void putIfCurrent(K key, V value, CompletableFuture<V> loading) {
+        Node<K, V> node = new Node<>(key, value, Math.max(1, weigher.applyAsInt(value)),
+                clock.millis() + ttl.toMillis());
+        evictionLock.lock();
+        try {
+            if (!inFlight.remove(key, loading) || node.weight > maxWeight) {
+                return;
+            }
+            Node<K, V> previous = data.put(key, node);
+            if (previous != null) {
+                unlink(previous);
+            }
+            sketch.increment(key);
+            node.inWindow = true;
+            window.put(key, node);
+            windowWeight += node.weight;
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean remove(K key, Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            if (data.remove(key, node)) {
+                unlink(node);
+                return true;
+            }
+            return false;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.inWindow) {
+            if (window.remove(node.key, node)) {
+                windowWeight -= node.weight;
+            }
+        } else if (main.remove(node.key, node)) {
+            mainWeight -= node.weight;
+        }
+    }
+
+    // Вызывается под evictionLock
+    private void evict() {
+        while (windowWeight > windowMaxWeight) {
+            Node<K, V> candidate = window.values().iterator().next();
+            window.remove(candidate.key);
+            windowWeight -= candidate.weight;
+            candidate.inWindow = false;
+            main.put(candidate.key, candidate);
+            mainWeight += candidate.weight;
+
+            while (windowWeight + mainWeight > maxWeight && !main.isEmpty()) {
+                Node<K, V> victim = main.values().iterator().next();
+                if (victim == candidate) {
+                    break;
+                }
+                // TinyLFU: остаётся тот, кого запрашивали чаще
+                Node<K, V> loser = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+                main.remove(loser.key);
+                mainWeight -= loser.weight;
+                data.remove(loser.key, loser);
+                evictions.increment();
+                if (loser == candidate) {
+                    break;
+                }
+            }
+        }
+        while (windowWeight + mainWeight > maxWeight && !main.isEmpty()) {
+            Node<K, V> victim = main.values().iterator().next();
+            main.remove(victim.key);
+            mainWeight -= victim.weight;
+            data.remove(victim.key, victim);
+            evictions.increment();
+        }
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        final long expiresAt;
+        boolean inWindow;
+
+        Node(K key, V value, int weight, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.booktracker.config;
+
+import com.booktracker.cache.LocalCache;
+import com.booktracker.dto.AuthorDTO;
+import com.booktracker.dto.BookDTO;
+import com.booktracker.dto.BookSummaryDTO;
+import com.booktracker.dto.ReviewDTO;
+import com.booktracker.security.VerifiedToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    // Вес записи - примерный объём текста в символах, лимит по умолчанию ~ 8 млн символов на кэш
+    @Bean
+    public LocalCache<Long, BookDTO> bookDetailCache(
+            @Value("${cache.book-detail.max-weight:8000000}") long maxWeight,
+            @Value("${cache.book-detail.ttl-seconds:600}") long ttlSeconds) {
+        return new LocalCache<>("book-detail", maxWeight, Duration.ofSeconds(ttlSeconds), CacheConfig::weigh);
+    }
+
+    @Bean
+    public LocalCache<Long, AuthorDTO> authorDetailCache(
+            @Value("${cache.author-detail.max-weight:2000000}") long maxWeight,
+            @Value("${cache.author-detail.ttl-seconds:600}") long ttlSeconds) {
+        return new LocalCache<>("author-detail", maxWeight, Duration.ofSeconds(ttlSeconds), CacheConfig::weigh);
+    }
+
+    @Bean
+    public LocalCache<Long, BookSummaryDTO> bookSummaryCache(
+            @Value("${cache.book-summary.max-weight:4000000}") long maxWeight,
+            @Value("${cache.book-summary.ttl-seconds:600}") long ttlSeconds) {
+        return new LocalCache<>("book-summary", maxWeight, Duration.ofSeconds(ttlSeconds), CacheConfig::weigh);
+    }
+
+    // SVG-аватары: вес в байтах, ~1 МБ хватает на тысячи разных инициалов
+    @Bean
+    public LocalCache<String, byte[]> avatarCache(
+            @Value("${cache.avatar.max-weight:1000000}") long maxWeight,
+            @Value("${cache.avatar.ttl-seconds:86400}") long ttlSeconds) {
+        return new LocalCache<>("avatar", maxWeight, Duration.ofSeconds(ttlSeconds), svg -> svg.length);
+    }
+
+    // Принципалы аутентифицированных пользователей по email: вес 1, лимит - число записей.
+    // Короткий TTL ограничивает устаревание, если пользователь изменён в обход UserController
+    @Bean
+    public LocalCache<String, UserDetails> principalCache(
+            @Value("${cache.principal.max-entries:10000}") long maxEntries,
+            @Value("${cache.principal.ttl-seconds:60}") long ttlSeconds) {
+        return new LocalCache<>("principal", maxEntries, Duration.ofSeconds(ttlSeconds), principal -> 1);
+    }
+
+    // Проверенные JWT по хэшу токена. TTL кэша короче срока жизни токенов, истечение самого токена
+    // проверяет JwtTokenProvider
+    @Bean
+    public LocalCache<String, VerifiedToken> verifiedTokenCache(
+            @Value("${cache.verified-token.max-entries:50000}") long maxEntries,
+            @Value("${cache.verified-token.ttl-seconds:300}") long ttlSeconds) {
+        return new LocalCache<>("verified-token", maxEntries, Duration.ofSeconds(ttlSeconds), token -> 1);
+    }
+
+    private static int weigh(BookDTO book) {
+        int weight = 64 + length(book.getTitle()) + length(book.getDescription()) + length(book.getCoverUrl())
+                + length(book.getCoverPlaceholder());
+        for (AuthorDTO author : book.getAuthors()) {
+            weight += weigh(author);
+        }
+        return weight + book.getGenres().size() * 32;
+    }
+
+    private static int weigh(BookSummaryDTO summary) {
+        int weight = 64;
+        for (ReviewDTO review : summary.getRecentReviews()) {
+            weight += 64 + length(review.getText()) + length(review.getUserName());
+        }
+        return weight;
+    }
+
+    private static int weigh(AuthorDTO author) {
+        return 64 + length(author.getName()) + length(author.getBiography()) + length(author.getPhotoUrl());
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,64 @@
+package com.booktracker.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+/**
+ * Книги, авторы и жанры раньше получали id через IDENTITY. Новая последовательность начинается с 1,
+ * поэтому при старте она сдвигается за максимальный существующий id с учётом пула Hibernate.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdSequenceInitializer {
+
+    // Должен совпадать с allocationSize в @SequenceGenerator сущностей
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "books_seq", "books",
+            "authors_seq", "authors",
+            "genres_seq", "genres");
+
+    private final PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void alignSequences() {
+        Dialect dialect = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                SEQUENCES.forEach((sequence, table) -> align(dialect, sequence, table)));
+    }
+
+    private void align(Dialect dialect, String sequence, String table) {
+        long maxId = ((Number) entityManager.createNativeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)
+                .getSingleResult()).longValue();
+        long next = ((Number) entityManager.createNativeQuery(
+                dialect.getSequenceSupport().getSequenceNextValString(sequence)).getSingleResult()).longValue();
+        // Пул Hibernate выдаёт id из (next - ALLOCATION_SIZE, next]
+        if (next - ALLOCATION_SIZE < maxId) {
+            long restart = maxId + ALLOCATION_SIZE + 1;
+            entityManager.createNativeQuery("ALTER SEQUENCE " + sequence + " RESTART WITH " + restart).executeUpdate();
+            log.info("Sequence {} moved past existing {} ids: restarts with {}", sequence, table, restart);
+        }
+    }
+}
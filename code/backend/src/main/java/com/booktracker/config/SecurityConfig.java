@@ -1,6 +1,7 @@
 package com.booktracker.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -50,7 +51,16 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/books/**").permitAll()
                         .requestMatchers("/api/authors/**").permitAll()
+                        .requestMatchers("/api/search/**").permitAll()
                         .requestMatchers("/api/reviews/public/**").permitAll()
+                        .requestMatchers("/api/images/**").permitAll()
+                        .requestMatchers("/api/avatars/**").permitAll()
+                        .requestMatchers("/api/live/**").permitAll()
+                        // Административные эндпоинты - только для роли ADMIN
+                        .requestMatchers("/api/admin/reviews/**").hasRole("ADMIN")
+                        .requestMatchers("/api/import/**").hasRole("ADMIN")
+                        .requestMatchers("/api/admin/caches/**").hasRole("ADMIN")
+                        .requestMatchers("/api/admin/password-hashing/**").hasRole("ADMIN")
                         // Все остальные запросы требуют аутентификации
                         .anyRequest().authenticated()
                 );
@@ -66,9 +76,10 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
+    // При повышении стоимости старые хэши пересчитываются при следующем входе (см. UserService.upgradePasswordHash)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
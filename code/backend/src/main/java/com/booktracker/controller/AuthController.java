@@ -2,15 +2,18 @@ package com.booktracker.controller;
 
 import com.booktracker.entity.User;
 import com.booktracker.repository.UserRepository;
-import com.booktracker.service.JwtService;
+import com.booktracker.security.JwtTokenProvider;
+import com.booktracker.security.PasswordHasher;
+import com.booktracker.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Optional;
@@ -23,8 +26,9 @@ import java.util.Optional;
 public class AuthController {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final JwtService jwtService;
+    private final PasswordHasher passwordHasher;
+    private final UserService userService;
+    private final JwtTokenProvider tokenProvider;
 
     @Operation(summary = "Вход в систему", description = "Аутентификация пользователя и получение JWT токена")
     @PostMapping("/login")
@@ -42,14 +46,21 @@ public class AuthController {
         }
 
         User user = userOpt.get();
-        log.info("User password matches: {}", passwordEncoder.matches(request.getPassword(), user.getPassword())); // ЛОГИРОВАНИЕ
+        boolean passwordMatches;
+        try {
+            passwordMatches = passwordHasher.matches(request.getPassword(), user.getPassword());
+        } catch (IllegalStateException e) {
+            log.warn("Login rejected for {}: {}", request.getLogin(), e.getMessage());
+            return busy();
+        }
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordMatches) {
             log.warn("Invalid password for user: {}", request.getLogin());
             return ResponseEntity.badRequest().body("Invalid password");
         }
+        userService.upgradePasswordHash(user, request.getPassword());
 
-        String token = jwtService.generateToken(user.getUsername());
+        String token = tokenProvider.generateToken(user.getEmail());
         log.info("Login successful for user: {}", user.getUsername());
 
         return ResponseEntity.ok(new AuthResponse(
@@ -88,7 +99,12 @@ public class AuthController {
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        try {
+            user.setPassword(passwordHasher.encode(request.getPassword()));
+        } catch (IllegalStateException e) {
+            log.warn("Registration rejected for {}: {}", request.getUsername(), e.getMessage());
+            return busy();
+        }
         // avatarUrl можно установить позже
 
         try {
@@ -96,7 +112,7 @@ public class AuthController {
             log.info("User registered successfully: {}", savedUser.getUsername());
 
             // Генерируем токен
-            String token = jwtService.generateToken(savedUser.getUsername());
+            String token = tokenProvider.generateToken(savedUser.getEmail());
 
             return ResponseEntity.ok(new AuthResponse(
                     token,
@@ -111,6 +127,13 @@ public class AuthController {
         }
     }
 
+    // Пул хэширования паролей переполнен: клиент может повторить запрос позже
+    private static ResponseEntity<String> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Server is busy, please try again later");
+    }
+
     // DTO классы
     @Data
     public static class LoginRequest {
@@ -2,45 +2,105 @@
 package com.booktracker.controller;
 
 import com.booktracker.dto.AuthorDTO;
+import com.booktracker.dto.CursorPage;
+import com.booktracker.dto.ResourceVersion;
 import com.booktracker.service.AuthorService;
+import com.booktracker.service.CatalogExportService;
+import com.booktracker.service.ResourceVersionService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.util.Optional;
+
+import static com.booktracker.controller.ConditionalResponses.notModified;
+import static com.booktracker.controller.ConditionalResponses.revalidated;
 
 @RestController
 @RequestMapping("/api/authors")
 @RequiredArgsConstructor
 public class AuthorController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final AuthorService authorService;
+    private final ResourceVersionService resourceVersionService;
+    private final CatalogExportService catalogExportService;
+    private final ExportResponses exportResponses;
 
     @GetMapping
     public ResponseEntity<Page<AuthorDTO>> getAllAuthors(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+
+        if (notModified(request, resourceVersionService.getAuthorPagesVersion())) {
+            return null;
+        }
 
         Pageable pageable = PageRequest.of(page, size);
         Page<AuthorDTO> authors = authorService.getAllAuthors(pageable);
-        return ResponseEntity.ok(authors);
+        return revalidated(authors);
+    }
+
+    // Keyset-пагинация по имени: cursor берётся из nextCursor предыдущего ответа
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<AuthorDTO>> scrollAuthors(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+
+        if (notModified(request, resourceVersionService.getAuthorPagesVersion())) {
+            return null;
+        }
+
+        try {
+            return revalidated(authorService.scrollAuthors(cursor, Math.min(Math.max(size, 1), MAX_PAGE_SIZE)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Все авторы в NDJSON по возрастанию id; after - id последнего полученного автора
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<ResponseEntity<Void>> exportAuthors(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) {
+
+        return exportResponses.ndjson(response, acceptEncoding, out -> catalogExportService.exportAuthors(after, out));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<AuthorDTO> getAuthorById(@PathVariable Long id) {
+    public ResponseEntity<AuthorDTO> getAuthorById(@PathVariable Long id, WebRequest request) {
+        Optional<ResourceVersion> version = resourceVersionService.getAuthorVersion(id);
+        if (version.isPresent() && notModified(request, version.get())) {
+            return null;
+        }
         AuthorDTO author = authorService.getAuthorById(id);
-        return ResponseEntity.ok(author);
+        return revalidated(author);
     }
 
     @GetMapping("/search")
     public ResponseEntity<Page<AuthorDTO>> searchAuthors(
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "substring") String mode) {
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<AuthorDTO> authors = authorService.searchAuthors(query, pageable);
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        Page<AuthorDTO> authors = switch (mode.toLowerCase()) {
+            case "relevance" -> authorService.searchAuthorsByRelevance(query, pageable);
+            case "fuzzy" -> authorService.searchAuthorsFuzzy(query, pageable);
+            default -> authorService.searchAuthors(query, pageable);
+        };
         return ResponseEntity.ok(authors);
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.booktracker.controller;
+
+import com.booktracker.image.AvatarService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/avatars")
+@RequiredArgsConstructor
+@Tag(name = "Avatars", description = "API для аватаров по умолчанию")
+public class AvatarController {
+
+    private static final MediaType SVG = MediaType.valueOf("image/svg+xml");
+
+    private final AvatarService avatarService;
+
+    // Картинка полностью определяется именем в URL, поэтому кэшируется браузером бессрочно
+    @GetMapping
+    @Operation(summary = "SVG-аватар с инициалами")
+    public ResponseEntity<byte[]> getAvatar(@RequestParam(defaultValue = "") String name) {
+        return ResponseEntity.ok()
+                .contentType(SVG)
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .header("X-Content-Type-Options", "nosniff")
+                .body(avatarService.render(name));
+    }
+}
@@ -1,19 +1,34 @@
 package com.booktracker.controller;
 
+import com.booktracker.dto.BookCardDTO;
 import com.booktracker.dto.BookDTO;
-import com.booktracker.entity.Book;
+import com.booktracker.dto.BookFacetsDTO;
+import com.booktracker.dto.BookFilter;
+import com.booktracker.dto.BookSummaryDTO;
+import com.booktracker.dto.CursorPage;
+import com.booktracker.dto.ResourceVersion;
+import com.booktracker.repository.BookSort;
+import com.booktracker.service.BookFacetService;
 import com.booktracker.service.BookService;
-import com.booktracker.repository.BookRepository;
+import com.booktracker.service.BookSummaryService;
+import com.booktracker.service.CatalogExportService;
+import com.booktracker.service.ResourceVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.antlr.v4.runtime.tree.pattern.ParseTreePattern;
 import org.springframework.data.domain.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+
+import static com.booktracker.controller.ConditionalResponses.notModified;
+import static com.booktracker.controller.ConditionalResponses.revalidated;
 
 @RestController
 @RequestMapping("/api/books")
@@ -21,98 +36,177 @@ import java.util.stream.Collectors;
 @Tag(name = "Books", description = "API для управления книгами")
 public class BookController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final BookService bookService;
-    private final BookRepository bookRepository;
+    private final BookFacetService bookFacetService;
+    private final ResourceVersionService resourceVersionService;
+    private final CatalogExportService catalogExportService;
+    private final ExportResponses exportResponses;
+    private final BookSummaryService bookSummaryService;
 
     @Operation(summary = "Получить все книги", description = "Возвращает список книг с пагинацией")
     @GetMapping
     public ResponseEntity<Page<BookDTO>> getAllBooks(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "title") String sort) {
+            @RequestParam(defaultValue = "title") String sort,
+            WebRequest request) {
+
+        if (notModified(request, resourceVersionService.getBookPagesVersion())) {
+            return null;
+        }
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sort));
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // Известные порядки каталога обслуживаются тем же путём, что и /filter (индекс или Specification)
+        if (BookSort.isKnown(sort)) {
+            Pageable pageable = PageRequest.of(Math.max(page, 0), pageSize);
+            return revalidated(bookService.filterBooks(new BookFilter(), BookSort.fromCode(sort), pageable));
+        }
+
+        Pageable pageable = PageRequest.of(Math.max(page, 0), pageSize, Sort.by(sort));
         Page<BookDTO> books = bookService.getAllBooks(pageable);
-        return ResponseEntity.ok(books);
+        return revalidated(books);
+    }
+
+    @Operation(summary = "Лента книг с курсором", description = "Keyset-пагинация каталога без подсчёта общего количества; cursor берётся из nextCursor предыдущего ответа")
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<BookDTO>> scrollBooks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) List<String> genres,
+            @RequestParam(required = false) List<String> chapters,
+            @RequestParam(required = false) Integer minPages,
+            @RequestParam(required = false) Integer maxPages,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(defaultValue = "title_asc") String sort,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+
+        if (notModified(request, resourceVersionService.getBookPagesVersion())) {
+            return null;
+        }
+
+        BookFilter filter = buildFilter(genres, chapters, minPages, maxPages, yearFrom, yearTo, minRating);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        try {
+            return revalidated(bookService.scrollBooks(filter, BookSort.fromCode(sort), cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Выгрузка каталога", description = "Все книги в NDJSON по возрастанию id, потоком; after - id последней полученной книги для продолжения выгрузки")
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<ResponseEntity<Void>> exportBooks(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) {
+
+        return exportResponses.ndjson(response, acceptEncoding, out -> catalogExportService.exportBooks(after, out));
     }
 
     @Operation(summary = "Получить книгу по ID", description = "Возвращает детальную информацию о книге")
     @GetMapping("/{id}")
-    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id) {
+    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id, WebRequest request) {
+        // 304 отдаётся по версии из БД, до загрузки книги
+        Optional<ResourceVersion> version = resourceVersionService.getBookVersion(id);
+        if (version.isPresent() && notModified(request, version.get())) {
+            return null;
+        }
         BookDTO book = bookService.getBookById(id);
-        return ResponseEntity.ok(book);
+        return revalidated(book);
     }
 
-    @Operation(summary = "Поиск книг", description = "Поиск книг по названию")
+    @Operation(summary = "Сводка по книге", description = "Гистограмма оценок, средняя оценка, число отзывов и последние одобренные отзывы")
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<BookSummaryDTO> getBookSummary(@PathVariable Long id) {
+        return ResponseEntity.ok(bookSummaryService.getSummary(id));
+    }
+
+    @Operation(summary = "Сводки по нескольким книгам", description = "Одним запросом для списков, например для главной страницы")
+    @GetMapping("/summaries")
+    public ResponseEntity<List<BookSummaryDTO>> getBookSummaries(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bookSummaryService.getSummaries(ids));
+    }
+
+    @Operation(summary = "Поиск книг", description = "Поиск книг по названию; mode=relevance - ранжированный поиск по названию, ISBN, авторам и описанию, mode=fuzzy - с опечатками и транслитерацией")
     @GetMapping("/search")
     public ResponseEntity<Page<BookDTO>> searchBooks(
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-
-        Pageable pageable = PageRequest.of(page, size);
-        Page<BookDTO> books = bookService.searchBooks(query, pageable);
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "substring") String mode) {
+
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        Page<BookDTO> books = switch (mode.toLowerCase()) {
+            case "relevance" -> bookService.searchBooksByRelevance(query, pageable);
+            case "fuzzy" -> bookService.searchBooksFuzzy(query, pageable);
+            default -> bookService.searchBooks(query, pageable);
+        };
         return ResponseEntity.ok(books);
     }
 
+    @Operation(summary = "Фильтрация книг", description = "Фильтры, сортировка и пагинация выполняются на стороне БД")
     @GetMapping("/filter")
-    public ResponseEntity<Page<Book>> getFilteredBooks(
+    public ResponseEntity<Page<BookCardDTO>> getFilteredBooks(
             @RequestParam(required = false) List<String> genres,
-            @RequestParam(required = false) String chapters,
-            @RequestParam(defaultValue = "title") String sort,
+            @RequestParam(required = false) List<String> chapters,
+            @RequestParam(required = false) Integer minPages,
+            @RequestParam(required = false) Integer maxPages,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(defaultValue = "title_asc") String sort,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-
-        // Получаем все книги
-        List<Book> allBooks = bookRepository.findAll();
-
-        // Фильтрация по жанрам
-        if (genres != null && !genres.isEmpty()) {
-            allBooks = allBooks.stream()
-                    .filter(book -> book.getGenres() != null &&
-                            book.getGenres().stream()
-                                    .anyMatch(genres::contains))
-                    .collect(Collectors.toList());
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+
+        if (notModified(request, resourceVersionService.getBookPagesVersion())) {
+            return null;
         }
 
+        BookFilter filter = buildFilter(genres, chapters, minPages, maxPages, yearFrom, yearTo, minRating);
 
-        // Упрощенная сортировка - ИСПРАВЛЕННАЯ ВЕРСИЯ
-        allBooks.sort((b1, b2) -> {
-            switch (sort) {
-                case "title_desc":
-                    return b2.getTitle().compareToIgnoreCase(b1.getTitle());
-                case "year_asc":
-                    // Для примитивного int просто сравниваем значения
-                    return Integer.compare(b1.getYear(), b2.getYear());
-                case "year_desc":
-                    // Для примитивного int просто сравниваем значения в обратном порядке
-                    return Integer.compare(b2.getYear(), b1.getYear());
-                case "rating_desc":
-                    // Для averageRating (если это Double)
-                    if (b1.getAverageRating() == null && b2.getAverageRating() == null) return 0;
-                    if (b1.getAverageRating() == null) return 1;
-                    if (b2.getAverageRating() == null) return -1;
-                    return Double.compare(b2.getAverageRating(), b1.getAverageRating());
-                default: // title_asc
-                    return b1.getTitle().compareToIgnoreCase(b2.getTitle());
-            }
-        });
-
-        // Пагинация
-        int start = page * size;
-        int end = Math.min(start + size, allBooks.size());
-
-        if (start >= allBooks.size()) {
-            return ResponseEntity.ok(Page.empty());
-        }
+        // Размер страницы ограничен, чтобы один запрос не выгружал весь каталог
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Pageable pageable = PageRequest.of(Math.max(page, 0), pageSize);
+        return revalidated(bookService.filterBookCards(filter, BookSort.fromCode(sort), pageable));
+    }
 
-        List<Book> pageContent = allBooks.subList(start, end);
-        Page<Book> resultPage = new PageImpl<>(
-                pageContent,
-                PageRequest.of(page, size),
-                allBooks.size()
-        );
+    @Operation(summary = "Фасеты каталога", description = "Количество книг по жанрам, годам и корзинам рейтинга для необязательного фильтра")
+    @GetMapping("/facets")
+    public ResponseEntity<BookFacetsDTO> getFacets(
+            @RequestParam(required = false) List<String> genres,
+            @RequestParam(required = false) List<String> chapters,
+            @RequestParam(required = false) Integer minPages,
+            @RequestParam(required = false) Integer maxPages,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false) Double minRating) {
+
+        BookFilter filter = buildFilter(genres, chapters, minPages, maxPages, yearFrom, yearTo, minRating);
+        return ResponseEntity.ok(bookFacetService.getFacets(filter));
+    }
 
-        return ResponseEntity.ok(resultPage);
+    private BookFilter buildFilter(List<String> genres, List<String> chapters, Integer minPages, Integer maxPages,
+                                   Integer yearFrom, Integer yearTo, Double minRating) {
+        BookFilter filter = new BookFilter();
+        if (genres != null) {
+            filter.setGenres(genres);
+        }
+        if (chapters != null) {
+            filter.setChapterRanges(chapters);
+        }
+        filter.setMinPages(minPages);
+        filter.setMaxPages(maxPages);
+        filter.setYearFrom(yearFrom);
+        filter.setYearTo(yearTo);
+        filter.setMinRating(minRating);
+        return filter;
     }
-}
\ No newline at end of file
+}
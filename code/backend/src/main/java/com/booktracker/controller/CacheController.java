@@ -0,0 +1,28 @@
+package com.booktracker.controller;
+
+import com.booktracker.cache.CacheStats;
+import com.booktracker.cache.LocalCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/caches")
+@RequiredArgsConstructor
+@Tag(name = "Caches", description = "API статистики кэшей")
+public class CacheController {
+
+    private final List<LocalCache<?, ?>> caches;
+
+    @GetMapping
+    @Operation(summary = "Счётчики попаданий, промахов и вытеснений по каждому кэшу")
+    public ResponseEntity<List<CacheStats>> getStats() {
+        return ResponseEntity.ok(caches.stream().map(LocalCache::stats).toList());
+    }
+}
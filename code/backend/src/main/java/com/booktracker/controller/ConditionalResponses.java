@@ -0,0 +1,25 @@
+package com.booktracker.controller;
+
+import com.booktracker.dto.ResourceVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Условные GET для ресурсов каталога.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    // Проставляет ETag/Last-Modified; true, если у клиента актуальная версия и ответ 304 уже сформирован
+    static boolean notModified(WebRequest request, ResourceVersion version) {
+        return request.checkNotModified(version.etag(), version.lastModified());
+    }
+
+    // Браузер перепроверяет ответ по валидатору, а не кэширует его эвристически по Last-Modified
+    static <T> ResponseEntity<T> revalidated(T body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body);
+    }
+}
@@ -0,0 +1,121 @@
+package com.booktracker.controller;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковые NDJSON-ответы с gzip, если клиент его принимает.
+ * <p>
+ * Выгрузка анонимна и держит соединение с БД всё время записи, поэтому идёт на собственном пуле
+ * из export.max-concurrent потоков с очередью export.max-queued, а не на общем исполнителе MVC.
+ * Длинный таймаут export.timeout задаётся только этой задаче: остальные асинхронные запросы (SSE)
+ * живут по своим настройкам. Когда мест нет, клиент сразу получает 503 с Retry-After.
+ */
+@Component
+class ExportResponses {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final ExecutorService pool;
+    private final AsyncTaskExecutor executor;
+    // Места в пуле и очереди: захватываются до постановки задачи, освобождаются по завершении запроса
+    private final Semaphore slots;
+    private final long timeoutMs;
+
+    ExportResponses(@Value("${export.max-concurrent:4}") int maxConcurrent,
+                    @Value("${export.max-queued:8}") int maxQueued,
+                    @Value("${export.timeout:30m}") Duration timeout) {
+        this.pool = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor = new TaskExecutorAdapter(pool);
+        this.slots = new Semaphore(maxConcurrent + maxQueued);
+        this.timeoutMs = timeout.toMillis();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Тело пишется прямо в ответ, а задача возвращает null: после выгрузки MVC считает запрос
+     * обработанным и больше ничего не пишет.
+     *
+     * @return асинхронная задача выгрузки или null, если ответ 503 уже записан
+     */
+    WebAsyncTask<ResponseEntity<Void>> ndjson(HttpServletResponse response, String acceptEncoding, StreamingResponseBody body) {
+        if (!slots.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "30");
+            return null;
+        }
+        boolean gzip = acceptsGzip(acceptEncoding);
+        response.setContentType(NDJSON.toString());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        WebAsyncTask<ResponseEntity<Void>> task = new WebAsyncTask<>(timeoutMs, executor, () -> {
+            OutputStream out = response.getOutputStream();
+            if (!gzip) {
+                body.writeTo(out);
+                out.flush();
+                return null;
+            }
+            // syncFlush: каждая записанная порция сразу уходит клиенту, а не копится в буфере компрессора
+            GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE, true);
+            body.writeTo(compressed);
+            compressed.finish();
+            return null;
+        });
+        // Вызывается один раз для любого исхода: успех, ошибка, таймаут (поток выгрузки при этом прерывается)
+        task.onCompletion(slots::release);
+        return task;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
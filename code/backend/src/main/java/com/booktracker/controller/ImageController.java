@@ -0,0 +1,107 @@
+package com.booktracker.controller;
+
+import com.booktracker.image.ImageStore;
+import com.booktracker.image.ImageVariant;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Отдача изображений из локального хранилища. Файл по id никогда не меняется, поэтому ответ
+ * кэшируется на год с immutable; повторные запросы с If-None-Match получают 304.
+ * Если коннектор Tomcat поддерживает sendfile, файл копирует ядро без участия потока приложения,
+ * иначе - FileChannel.transferTo в поток ответа.
+ */
+@RestController
+@RequestMapping("/api/images")
+@RequiredArgsConstructor
+@Tag(name = "Images", description = "API для получения обложек и миниатюр")
+public class ImageController {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic()
+            .immutable()
+            .getHeaderValue();
+
+    private final ImageStore imageStore;
+
+    @GetMapping("/{id}/{variant}")
+    @Operation(summary = "Получить изображение: original, thumb-160.jpg или thumb-320.jpg")
+    public void getImage(@PathVariable String id, @PathVariable String variant,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageVariant imageVariant = ImageVariant.fromFileName(variant);
+        if (imageVariant == null || !ImageStore.isValidId(id)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path path = imageStore.path(id, imageVariant);
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + id + "-" + variant + "\"")) {
+            return;
+        }
+        response.setContentType(contentType(path, imageVariant));
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentLengthLong(size);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += file.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    private static String contentType(Path path, ImageVariant variant) throws IOException {
+        if (variant != ImageVariant.ORIGINAL) {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+        // Формат оригинала определяется по сигнатуре файла
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            String type = URLConnection.guessContentTypeFromStream(in);
+            return type != null && type.startsWith("image/") ? type : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.booktracker.controller;
+
+import com.booktracker.dto.ImportJobDTO;
+import com.booktracker.entity.ImportJob;
+import com.booktracker.importer.CatalogImporter;
+import com.booktracker.importer.ImportFormat;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/import")
+@RequiredArgsConstructor
+@Tag(name = "Import", description = "API пакетного импорта каталога")
+public class ImportController {
+
+    private final CatalogImporter catalogImporter;
+
+    @Operation(summary = "Импорт книг", description = "Тело запроса - CSV с заголовком (format=csv) или JSON Lines (format=jsonl). " +
+            "Задание выполняется в фоне: ответ 202 с id задания сразу после приёма файла, прогресс - GET /api/import/jobs/{id}, " +
+            "503 - очередь заданий заполнена; jobId продолжает прерванное задание с контрольной точки при повторной отправке того же файла; " +
+            "enrich=true дополняет недостающие поля по ISBN из внешнего источника")
+    @PostMapping("/books")
+    public ResponseEntity<ImportJobDTO> importBooks(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) Long jobId,
+            @RequestParam(defaultValue = "false") boolean enrich,
+            InputStream body) {
+
+        ImportJob job;
+        try {
+            job = catalogImporter.startJob(jobId, ImportFormat.fromCode(format), source);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        ImportJobDTO accepted;
+        try {
+            accepted = catalogImporter.submit(job, body, enrich);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/import/jobs/" + accepted.getId()))
+                .body(accepted);
+    }
+
+    @Operation(summary = "Состояние задания импорта", description = "Прогресс по последней контрольной точке и средняя скорость")
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ImportJobDTO> getJob(@PathVariable Long id) {
+        return ResponseEntity.ok(catalogImporter.getJob(id));
+    }
+}
@@ -0,0 +1,26 @@
+package com.booktracker.controller;
+
+import com.booktracker.security.PasswordHasher;
+import com.booktracker.security.PasswordHashingStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/password-hashing")
+@RequiredArgsConstructor
+@Tag(name = "Password hashing", description = "API статистики хэширования паролей")
+public class PasswordHashingController {
+
+    private final PasswordHasher passwordHasher;
+
+    @GetMapping
+    @Operation(summary = "Размер пула и очереди, отказы, таймауты, время ожидания и хэширования")
+    public ResponseEntity<PasswordHashingStats> getStats() {
+        return ResponseEntity.ok(passwordHasher.stats());
+    }
+}
@@ -0,0 +1,93 @@
+package com.booktracker.controller;
+
+import com.booktracker.dto.CursorPage;
+import com.booktracker.dto.ReviewDTO;
+import com.booktracker.dto.ReviewModerationRequest;
+import com.booktracker.dto.ReviewModerationResultDTO;
+import com.booktracker.service.ReviewModerationService;
+import com.booktracker.service.ReviewService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Reviews", description = "API для отзывов")
+public class ReviewController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_MODERATION_IDS = 10_000;
+
+    private final ReviewService reviewService;
+    private final ReviewModerationService reviewModerationService;
+
+    @Operation(summary = "Отзывы о книге", description = "Отзывы с пагинацией по страницам")
+    @GetMapping("/api/books/{bookId}/reviews")
+    public ResponseEntity<Page<ReviewDTO>> getBookReviews(
+            @PathVariable Long bookId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
+        return ResponseEntity.ok(reviewService.getBookReviews(bookId, pageable));
+    }
+
+    @Operation(summary = "Лента отзывов о книге", description = "Keyset-пагинация по дате создания, без подсчёта общего количества")
+    @GetMapping("/api/books/{bookId}/reviews/scroll")
+    public ResponseEntity<CursorPage<ReviewDTO>> scrollBookReviews(
+            @PathVariable Long bookId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        try {
+            return ResponseEntity.ok(reviewService.scrollBookReviews(bookId, cursor, boundedSize(size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Последние отзывы", description = "Одобренные отзывы, от новых к старым")
+    @GetMapping("/api/reviews/public/latest")
+    public ResponseEntity<Page<ReviewDTO>> getLatestReviews(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        return ResponseEntity.ok(reviewService.getLatestReviews(PageRequest.of(page, size)));
+    }
+
+    @Operation(summary = "Лента последних отзывов", description = "Keyset-пагинация одобренных отзывов")
+    @GetMapping("/api/reviews/public/latest/scroll")
+    public ResponseEntity<CursorPage<ReviewDTO>> scrollLatestReviews(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        try {
+            return ResponseEntity.ok(reviewService.scrollLatestReviews(cursor, boundedSize(size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Массовая модерация отзывов", description = "APPROVE или REJECT по списку id либо по фильтру (книга, пользователь, период); результат по каждому пакету")
+    @PostMapping("/api/admin/reviews/moderation")
+    public ResponseEntity<ReviewModerationResultDTO> moderateReviews(@RequestBody ReviewModerationRequest request) {
+        if (request.getReviewIds() != null && request.getReviewIds().size() > MAX_MODERATION_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(reviewModerationService.moderate(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static int boundedSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,32 @@
+package com.booktracker.controller;
+
+import com.booktracker.dto.SuggestionDTO;
+import com.booktracker.service.SuggestionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+@Tag(name = "Search", description = "API для подсказок поиска")
+public class SearchController {
+
+    private final SuggestionService suggestionService;
+
+    @Operation(summary = "Подсказки", description = "Книги и авторы, название или имя которых начинается с введённого префикса")
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(suggestionService.suggest(q, limit));
+    }
+}
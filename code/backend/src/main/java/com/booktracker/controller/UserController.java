@@ -1,10 +1,12 @@
 package com.booktracker.controller;
 
+import com.booktracker.cache.LocalCache;
 import com.booktracker.entity.User;
 import com.booktracker.repository.UserRepository;
 import lombok.Data;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 
@@ -15,22 +17,24 @@ import java.util.Optional;
 public class UserController {
 
     private final UserRepository userRepository;
+    private final LocalCache<String, UserDetails> principalCache;
 
-    public UserController(UserRepository userRepository) {
+    public UserController(UserRepository userRepository, LocalCache<String, UserDetails> principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @PutMapping("/profile")
     public ResponseEntity<User> updateProfile(@RequestBody UserProfileUpdate request,
                                               Authentication authentication) {
-        String username = authentication.getName();
-        Optional<Object> userOpt = userRepository.findByUsername(username);
+        // Имя аутентификации - email из subject токена
+        Optional<User> userOpt = userRepository.findByEmail(authentication.getName());
 
         if (userOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        User user = (User) userOpt.get();
+        User user = userOpt.get();
 
         // Обновляем только разрешенные поля
         if (request.getDisplayName() != null && !request.getDisplayName().trim().isEmpty()) {
@@ -54,6 +58,8 @@ public class UserController {
         }
 
         User updatedUser = userRepository.save(user);
+        // Следующий запрос с токеном пересоберёт принципала из БД
+        principalCache.invalidate(updatedUser.getEmail());
 
         // Возвращаем пользователя без пароля
         updatedUser.setPassword(null);
@@ -64,14 +70,14 @@ public class UserController {
     // Получить профиль текущего пользователя
     @GetMapping("/profile")
     public ResponseEntity<User> getProfile(Authentication authentication) {
-        String username = authentication.getName();
-        Optional<Object> userOpt = userRepository.findByUsername(username);
+        // Имя аутентификации - email из subject токена
+        Optional<User> userOpt = userRepository.findByEmail(authentication.getName());
 
         if (userOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        User user = (User) userOpt.get();
+        User user = userOpt.get();
         user.setPassword(null); // Не возвращаем пароль
 
         return ResponseEntity.ok(user);
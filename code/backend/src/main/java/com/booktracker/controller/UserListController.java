@@ -1,5 +1,7 @@
 package com.booktracker.controller;
 
+import com.booktracker.dto.AuthorCardDTO;
+import com.booktracker.dto.BookCardDTO;
 import com.booktracker.entity.UserList;
 import com.booktracker.entity.Book;
 import com.booktracker.entity.Author;
@@ -8,6 +10,7 @@ import com.booktracker.repository.UserListRepository;
 import com.booktracker.repository.BookRepository;
 import com.booktracker.repository.AuthorRepository;
 import com.booktracker.repository.UserRepository;
+import com.booktracker.service.BookService;
 import com.booktracker.service.UserService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -25,7 +28,6 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/api/user/lists")
@@ -36,24 +38,27 @@ public class UserListController {
         private final AuthorRepository authorRepository;
         private final UserRepository userRepository;
         private final UserService userService;
+        private final BookService bookService;
 
         public UserListController(UserListRepository userListRepository,
                                   BookRepository bookRepository,
                                   AuthorRepository authorRepository,
                                   UserRepository userRepository,
-                                  UserService userService) {
+                                  UserService userService,
+                                  BookService bookService) {
                 this.userListRepository = userListRepository;
                 this.bookRepository = bookRepository;
                 this.authorRepository = authorRepository;
                 this.userRepository = userRepository;
                 this.userService = userService;
+                this.bookService = bookService;
         }
 
         // Получить все списки текущего пользователя
         @GetMapping
         public ResponseEntity<List<UserList>> getUserLists(Authentication authentication) {
-                String username = authentication.getName();
-                User user = (User) userRepository.findByUsername(username)
+                // Имя аутентификации - email из subject токена
+                User user = userRepository.findByEmail(authentication.getName())
                         .orElseThrow(() -> new RuntimeException("User not found"));
 
                 List<UserList> userLists = userListRepository.findByUser(user);
@@ -84,8 +89,7 @@ public class UserListController {
         @PostMapping
         public ResponseEntity<UserList> createList(@RequestBody @Valid CreateListRequest request,
                                                    Authentication authentication) {
-                String username = authentication.getName();
-                User user = (User) userRepository.findByUsername(username)
+                User user = userRepository.findByEmail(authentication.getName())
                         .orElseThrow(() -> new RuntimeException("User not found"));
 
                 // Проверяем, нет ли уже списка с таким именем
@@ -107,8 +111,7 @@ public class UserListController {
         // Удалить список
         @DeleteMapping("/{listId}")
         public ResponseEntity<?> deleteList(@PathVariable Long listId, Authentication authentication) {
-                String username = authentication.getName();
-                User user = (User) userRepository.findByUsername(username)
+                User user = userRepository.findByEmail(authentication.getName())
                         .orElseThrow(() -> new RuntimeException("User not found"));
 
                 Optional<UserList> listOpt = userListRepository.findByIdAndUser(listId, user);
@@ -131,8 +134,7 @@ public class UserListController {
         public ResponseEntity<?> addBookToList(@PathVariable Long listId,
                                                @PathVariable Long bookId,
                                                Authentication authentication) {
-                String username = authentication.getName();
-                User user = (User) userRepository.findByUsername(username)
+                User user = userRepository.findByEmail(authentication.getName())
                         .orElseThrow(() -> new RuntimeException("User not found"));
 
                 Optional<UserList> listOpt = userListRepository.findByIdAndUser(listId, user);
@@ -159,8 +161,7 @@ public class UserListController {
         public ResponseEntity<?> removeBookFromList(@PathVariable Long listId,
                                                     @PathVariable Long bookId,
                                                     Authentication authentication) {
-                String username = authentication.getName();
-                User user = (User) userRepository.findByUsername(username)
+                User user = userRepository.findByEmail(authentication.getName())
                         .orElseThrow(() -> new RuntimeException("User not found"));
 
                 Optional<UserList> listOpt = userListRepository.findByIdAndUser(listId, user);
@@ -187,8 +188,7 @@ public class UserListController {
         public ResponseEntity<?> addAuthorToList(@PathVariable Long listId,
                                                  @PathVariable Long authorId,
                                                  Authentication authentication) {
-                String username = authentication.getName();
-                User user = (User) userRepository.findByUsername(username)
+                User user = userRepository.findByEmail(authentication.getName())
                         .orElseThrow(() -> new RuntimeException("User not found"));
 
                 Optional<UserList> listOpt = userListRepository.findByIdAndUser(listId, user);
@@ -215,8 +215,7 @@ public class UserListController {
         public ResponseEntity<?> removeAuthorFromList(@PathVariable Long listId,
                                                       @PathVariable Long authorId,
                                                       Authentication authentication) {
-                String username = authentication.getName();
-                User user = (User) userRepository.findByUsername(username)
+                User user = userRepository.findByEmail(authentication.getName())
                         .orElseThrow(() -> new RuntimeException("User not found"));
 
                 Optional<UserList> listOpt = userListRepository.findByIdAndUser(listId, user);
@@ -240,13 +239,12 @@ public class UserListController {
 
         // Получить книги из списка
         @GetMapping("/{listId}/books")
-        public ResponseEntity<Page<Book>> getBooksFromList(@PathVariable Long listId,
-                                                           @RequestParam(defaultValue = "0") int page,
-                                                           @RequestParam(defaultValue = "20") int size,
-                                                           @RequestParam(defaultValue = "title") String sort,
-                                                           Authentication authentication) {
-                String username = authentication.getName();
-                User user = (User) userRepository.findByUsername(username)
+        public ResponseEntity<Page<BookCardDTO>> getBooksFromList(@PathVariable Long listId,
+                                                                  @RequestParam(defaultValue = "0") int page,
+                                                                  @RequestParam(defaultValue = "20") int size,
+                                                                  @RequestParam(defaultValue = "title") String sort,
+                                                                  Authentication authentication) {
+                User user = userRepository.findByEmail(authentication.getName())
                         .orElseThrow(() -> new RuntimeException("User not found"));
 
                 Optional<UserList> listOpt = userListRepository.findByIdAndUser(listId, user);
@@ -255,46 +253,25 @@ public class UserListController {
                 }
 
                 UserList list = listOpt.get();
+                Pageable pageable = PageRequest.of(page, size, Sort.by(sort));
 
                 // Для системного списка "all" возвращаем все книги пользователя
                 if ("all".equals(list.getType())) {
-                        // Здесь можно вернуть все книги или книги из коллекции пользователя
-                        Pageable pageable = PageRequest.of(page, size, Sort.by(sort));
-                        Page<Book> allBooks = bookRepository.findAll(pageable);
-                        return ResponseEntity.ok(allBooks);
+                        return ResponseEntity.ok(bookService.getAllBookCards(pageable));
                 }
 
-                // Для обычных списков возвращаем книги из списка
-                Set<Book> books = list.getBooks();
-                List<Book> bookList = books.stream().toList();
-
-                // Простая пагинация
-                int start = page * size;
-                int end = Math.min(start + size, bookList.size());
-
-                if (start > bookList.size()) {
-                        return ResponseEntity.ok(Page.empty());
-                }
-
-                List<Book> pageContent = bookList.subList(start, end);
-                Page<Book> resultPage = new org.springframework.data.domain.PageImpl<>(
-                        pageContent,
-                        PageRequest.of(page, size, Sort.by(sort)),
-                        bookList.size()
-                );
-
-                return ResponseEntity.ok(resultPage);
+                // Для обычных списков - проекция карточек с пагинацией в БД
+                return ResponseEntity.ok(bookService.getListBookCards(list.getId(), pageable));
         }
 
         // Получить авторов из списка
         @GetMapping("/{listId}/authors")
-        public ResponseEntity<Page<Author>> getAuthorsFromList(@PathVariable Long listId,
-                                                               @RequestParam(defaultValue = "0") int page,
-                                                               @RequestParam(defaultValue = "20") int size,
-                                                               @RequestParam(defaultValue = "name") String sort,
-                                                               Authentication authentication) {
-                String username = authentication.getName();
-                User user = (User) userRepository.findByUsername(username)
+        public ResponseEntity<Page<AuthorCardDTO>> getAuthorsFromList(@PathVariable Long listId,
+                                                                      @RequestParam(defaultValue = "0") int page,
+                                                                      @RequestParam(defaultValue = "20") int size,
+                                                                      @RequestParam(defaultValue = "name") String sort,
+                                                                      Authentication authentication) {
+                User user = userRepository.findByEmail(authentication.getName())
                         .orElseThrow(() -> new RuntimeException("User not found"));
 
                 Optional<UserList> listOpt = userListRepository.findByIdAndUser(listId, user);
@@ -302,26 +279,8 @@ public class UserListController {
                         return ResponseEntity.notFound().build();
                 }
 
-                UserList list = listOpt.get();
-                Set<Author> authors = list.getAuthors();
-                List<Author> authorList = authors.stream().toList();
-
-                // Простая пагинация
-                int start = page * size;
-                int end = Math.min(start + size, authorList.size());
-
-                if (start > authorList.size()) {
-                        return ResponseEntity.ok(Page.empty());
-                }
-
-                List<Author> pageContent = authorList.subList(start, end);
-                Page<Author> resultPage = new org.springframework.data.domain.PageImpl<>(
-                        pageContent,
-                        PageRequest.of(page, size, Sort.by(sort)),
-                        authorList.size()
-                );
-
-                return ResponseEntity.ok(resultPage);
+                Pageable pageable = PageRequest.of(page, size, Sort.by(sort));
+                return ResponseEntity.ok(authorRepository.findCardsByListId(listOpt.get().getId(), pageable));
         }
 
         @Data
@@ -0,0 +1,15 @@
+package com.booktracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Облегчённая модель автора для списков: без биографии и списка книг
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthorCardDTO {
+    private Long id;
+    private String name;
+    private String photoUrl;
+}
@@ -0,0 +1,35 @@
+package com.booktracker.dto;
+
+import com.booktracker.image.ImageStore;
+import com.booktracker.image.ImageVariant;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Облегчённая модель для карточек в списках: без описания и без связанных сущностей
+@Data
+@NoArgsConstructor
+public class BookCardDTO {
+    private Long id;
+    private String title;
+    private Integer year;
+    private String coverUrl;
+    private String coverThumbnailUrl;
+    private String coverPlaceholder;
+    private Double averageRating;
+    private List<String> authorNames = new ArrayList<>();
+
+    // Используется в JPQL/Criteria constructor-проекциях
+    public BookCardDTO(Long id, String title, Integer year, String coverUrl, String coverImageId,
+                       String coverPlaceholder, Double averageRating) {
+        this.id = id;
+        this.title = title;
+        this.year = year;
+        this.coverUrl = coverUrl;
+        this.coverThumbnailUrl = ImageStore.url(coverImageId, ImageVariant.THUMB_LARGE);
+        this.coverPlaceholder = coverPlaceholder;
+        this.averageRating = averageRating;
+    }
+}
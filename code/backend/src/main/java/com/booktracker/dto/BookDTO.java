@@ -12,6 +12,8 @@ public class BookDTO {
     private Integer year; // Используем только year
     private String description;
     private String coverUrl;
+    private String coverThumbnailUrl;
+    private String coverPlaceholder;
     private Integer pages;
     private Integer chapters;
     private Double averageRating;
@@ -0,0 +1,16 @@
+package com.booktracker.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Data
+public class BookFacetsDTO {
+    private long total;
+    private Map<String, Long> genres = new TreeMap<>();
+    private Map<Integer, Long> years = new TreeMap<>();
+    // Корзины среднего рейтинга: "0-1" ... "4-5" и "unrated"
+    private Map<String, Long> ratings = new LinkedHashMap<>();
+}
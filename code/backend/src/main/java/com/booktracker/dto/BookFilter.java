@@ -0,0 +1,18 @@
+package com.booktracker.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BookFilter {
+    private List<String> genres = new ArrayList<>();
+    // Диапазоны глав в формате каталога: "0-10", "10-50", "100+"
+    private List<String> chapterRanges = new ArrayList<>();
+    private Integer minPages;
+    private Integer maxPages;
+    private Integer yearFrom;
+    private Integer yearTo;
+    private Double minRating;
+}
@@ -0,0 +1,18 @@
+package com.booktracker.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Сводка для страницы книги: рейтинг, гистограмма оценок и последние одобренные отзывы одним ответом
+@Data
+public class BookSummaryDTO {
+    private Long bookId;
+    private Double averageRating;
+    private Integer ratingsCount;
+    // Число оценок по звёздам: элемент 0 - одна звезда
+    private List<Long> histogram = new ArrayList<>();
+    private Long reviewsCount;
+    private List<ReviewDTO> recentReviews = new ArrayList<>();
+}
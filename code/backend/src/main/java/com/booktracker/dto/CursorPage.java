@@ -0,0 +1,19 @@
+package com.booktracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Страница keyset-пагинации: без общего количества, со ссылкой на продолжение.
+ * nextCursor равен null, когда дальше данных нет.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+}
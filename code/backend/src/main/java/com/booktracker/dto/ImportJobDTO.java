@@ -0,0 +1,23 @@
+package com.booktracker.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ImportJobDTO {
+    private Long id;
+    private String source;
+    private String format;
+    private String status;
+    private long processedRecords;
+    private long insertedBooks;
+    private long skippedDuplicates;
+    private long invalidRecords;
+    private long createdAuthors;
+    private long createdGenres;
+    private double recordsPerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private String error;
+}
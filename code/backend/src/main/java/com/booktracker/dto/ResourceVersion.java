@@ -0,0 +1,8 @@
+package com.booktracker.dto;
+
+/**
+ * Валидатор HTTP-ответа: ETag (в кавычках, для страниц - слабый W/"...")
+ * и время последнего изменения в миллисекундах (-1, если неизвестно).
+ */
+public record ResourceVersion(String etag, long lastModified) {
+}
@@ -0,0 +1,19 @@
+package com.booktracker.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Массовая модерация: либо список id, либо фильтр (книга, пользователь, период создания)
+@Data
+public class ReviewModerationRequest {
+    // APPROVE или REJECT
+    private String action;
+    private List<Long> reviewIds = new ArrayList<>();
+    private Long bookId;
+    private Long userId;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+}
@@ -0,0 +1,18 @@
+package com.booktracker.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ReviewModerationResultDTO {
+    private String action;
+    private long matched;
+    private long updated;
+    private List<Chunk> chunks = new ArrayList<>();
+
+    // Результат одного UPDATE: диапазон id, сколько отзывов выбрано и сколько изменено, сколько книг затронуто
+    public record Chunk(int index, Long firstReviewId, Long lastReviewId, int matched, int updated, int books) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.booktracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String type; // "book" или "author"
+    private Long id;
+    private String text;
+}
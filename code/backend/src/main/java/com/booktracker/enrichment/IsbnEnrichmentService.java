@@ -0,0 +1,286 @@
+package com.booktracker.enrichment;
+
+import com.booktracker.entity.Isbn;
+import com.booktracker.entity.IsbnMetadataCacheEntry;
+import com.booktracker.repository.IsbnMetadataCacheRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронное обогащение книг метаданными по ISBN. Вызывающий поток не блокируется:
+ * <ul>
+ *     <li>одновременные запросы одного ISBN получают один и тот же future;</li>
+ *     <li>ISBN копятся до batchSize или lingerMs и уходят одним пакетным запросом;</li>
+ *     <li>к одному хосту одновременно идёт не больше maxConcurrentPerHost запросов;</li>
+ *     <li>после серии ошибок предохранитель временно отключает вызовы, запросы завершаются ошибкой сразу;</li>
+ *     <li>ответы сохраняются в БД: найденные на positiveTtl, ненайденные на negativeTtl.</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class IsbnEnrichmentService {
+
+    private final IsbnMetadataSource source;
+    private final IsbnMetadataCacheRepository cacheRepository;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long lingerMs;
+    private final int maxConcurrentPerHost;
+    private final long permitTimeoutMs;
+    private final Duration positiveTtl;
+    private final Duration negativeTtl;
+    private final CircuitBreaker circuitBreaker;
+
+    private final Map<String, CompletableFuture<Optional<IsbnMetadata>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final List<String> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "isbn-enrichment-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Больше maxConcurrentPerHost пакетов одновременно всё равно не уйдёт: остальные ждут в очереди пула
+    private final ExecutorService workers;
+
+    public IsbnEnrichmentService(IsbnMetadataSource source,
+                                 IsbnMetadataCacheRepository cacheRepository,
+                                 ObjectMapper objectMapper,
+                                 @Value("${enrichment.isbn.batch-size:20}") int batchSize,
+                                 @Value("${enrichment.isbn.linger-ms:50}") long lingerMs,
+                                 @Value("${enrichment.isbn.max-concurrent-per-host:4}") int maxConcurrentPerHost,
+                                 @Value("${enrichment.isbn.permit-timeout-ms:10000}") long permitTimeoutMs,
+                                 @Value("${enrichment.isbn.positive-ttl-days:30}") long positiveTtlDays,
+                                 @Value("${enrichment.isbn.negative-ttl-hours:24}") long negativeTtlHours,
+                                 @Value("${enrichment.isbn.breaker.failure-threshold:5}") int failureThreshold,
+                                 @Value("${enrichment.isbn.breaker.open-seconds:30}") long openSeconds) {
+        this.source = source;
+        this.cacheRepository = cacheRepository;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.permitTimeoutMs = permitTimeoutMs;
+        this.positiveTtl = Duration.ofDays(positiveTtlDays);
+        this.negativeTtl = Duration.ofHours(negativeTtlHours);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, Duration.ofSeconds(openSeconds));
+        this.workers = Executors.newFixedThreadPool(maxConcurrentPerHost, runnable -> {
+            Thread thread = new Thread(runnable, "isbn-enrichment-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return метаданные или пустой Optional, если книга не найдена; ошибка future - источник недоступен
+     */
+    public CompletableFuture<Optional<IsbnMetadata>> lookup(String isbn) {
+        String key = Isbn.normalize(isbn);
+        if (key == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        CompletableFuture<Optional<IsbnMetadata>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<IsbnMetadata>> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        created.whenComplete((result, error) -> inFlight.remove(key, created));
+        enqueue(key);
+        return created;
+    }
+
+    /**
+     * Пакетный вариант для импорта: ошибки отдельных ISBN не прерывают остальные.
+     *
+     * @return найденные метаданные по нормализованному ISBN
+     */
+    public CompletableFuture<Map<String, IsbnMetadata>> lookupAll(Collection<String> isbns) {
+        List<CompletableFuture<Optional<IsbnMetadata>>> futures = new ArrayList<>();
+        for (String isbn : new LinkedHashSet<>(isbns)) {
+            futures.add(lookup(isbn).exceptionally(error -> Optional.empty()));
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            Map<String, IsbnMetadata> found = new HashMap<>();
+            for (CompletableFuture<Optional<IsbnMetadata>> future : futures) {
+                future.join().ifPresent(metadata -> found.put(metadata.isbn(), metadata));
+            }
+            return found;
+        });
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void enqueue(String isbn) {
+        synchronized (pending) {
+            pending.add(isbn);
+            if (pending.size() >= batchSize) {
+                scheduler.execute(this::flush);
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, lingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void flush() {
+        while (true) {
+            List<String> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    if (scheduledFlush != null) {
+                        scheduledFlush.cancel(false);
+                        scheduledFlush = null;
+                    }
+                    return;
+                }
+                int size = Math.min(batchSize, pending.size());
+                batch = new ArrayList<>(pending.subList(0, size));
+                pending.subList(0, size).clear();
+            }
+            workers.execute(() -> resolve(batch));
+        }
+    }
+
+    private void resolve(List<String> batch) {
+        List<String> missing = new ArrayList<>();
+        try {
+            Map<String, IsbnMetadataCacheEntry> cached = new HashMap<>();
+            for (IsbnMetadataCacheEntry entry : cacheRepository.findAllById(batch)) {
+                cached.put(entry.getIsbn(), entry);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            for (String isbn : batch) {
+                IsbnMetadataCacheEntry entry = cached.get(isbn);
+                if (entry != null && isFresh(entry, now)) {
+                    complete(isbn, entry.isFound() ? Optional.of(fromJson(entry.getPayload())) : Optional.empty());
+                } else {
+                    missing.add(isbn);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Кэш недоступен - идём в источник со всем пакетом
+            log.warn("ISBN cache lookup failed: {}", e.getMessage());
+            missing.clear();
+            missing.addAll(batch);
+        }
+        if (!missing.isEmpty()) {
+            fetch(missing);
+        }
+    }
+
+    private void fetch(List<String> isbns) {
+        Semaphore permits = hostPermits.computeIfAbsent(source.host(), host -> new Semaphore(maxConcurrentPerHost));
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(permitTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                fail(isbns, new IllegalStateException("Too many concurrent requests to " + source.host()));
+                return;
+            }
+            if (!circuitBreaker.tryAcquire()) {
+                fail(isbns, new IllegalStateException("ISBN metadata source is unavailable (circuit open)"));
+                return;
+            }
+            Map<String, IsbnMetadata> found;
+            try {
+                found = source.fetch(isbns);
+            } catch (RuntimeException e) {
+                circuitBreaker.onFailure();
+                log.warn("ISBN metadata request for {} ISBNs failed: {}", isbns.size(), e.getMessage());
+                fail(isbns, e);
+                return;
+            }
+            circuitBreaker.onSuccess();
+            store(isbns, found);
+            for (String isbn : isbns) {
+                complete(isbn, Optional.ofNullable(found.get(isbn)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(isbns, e);
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+        }
+    }
+
+    private void store(List<String> isbns, Map<String, IsbnMetadata> found) {
+        try {
+            List<IsbnMetadataCacheEntry> entries = new ArrayList<>(isbns.size());
+            LocalDateTime now = LocalDateTime.now();
+            for (String isbn : isbns) {
+                IsbnMetadataCacheEntry entry = new IsbnMetadataCacheEntry();
+                entry.setIsbn(isbn);
+                entry.setFetchedAt(now);
+                IsbnMetadata metadata = found.get(isbn);
+                entry.setFound(metadata != null);
+                entry.setPayload(metadata == null ? null : objectMapper.writeValueAsString(metadata));
+                entries.add(entry);
+            }
+            cacheRepository.saveAll(entries);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Ответ уже получен: ошибка записи в кэш не должна его терять
+            log.warn("Failed to store ISBN metadata in cache: {}", e.getMessage());
+        }
+    }
+
+    private boolean isFresh(IsbnMetadataCacheEntry entry, LocalDateTime now) {
+        Duration ttl = entry.isFound() ? positiveTtl : negativeTtl;
+        return entry.getFetchedAt().plus(ttl).isAfter(now);
+    }
+
+    private IsbnMetadata fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, IsbnMetadata.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupted ISBN cache entry", e);
+        }
+    }
+
+    private void complete(String isbn, Optional<IsbnMetadata> result) {
+        CompletableFuture<Optional<IsbnMetadata>> future = inFlight.get(isbn);
+        if (future != null) {
+            future.complete(result);
+        }
+    }
+
+    private void fail(List<String> isbns, Exception error) {
+        for (String isbn : isbns) {
+            CompletableFuture<Optional<IsbnMetadata>> future = inFlight.get(isbn);
+            if (future != null) {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+}
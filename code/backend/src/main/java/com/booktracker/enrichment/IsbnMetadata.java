@@ -0,0 +1,10 @@
+package com.booktracker.enrichment;
+
+import java.util.List;
+
+/**
+ * Метаданные книги из внешнего источника по ISBN.
+ */
+public record IsbnMetadata(String isbn, String title, List<String> authors, Integer year, Integer pages,
+                           String coverUrl, String description, List<String> subjects) {
+}
@@ -0,0 +1,22 @@
+package com.booktracker.enrichment;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Внешний источник метаданных с пакетным запросом.
+ */
+public interface IsbnMetadataSource {
+
+    /**
+     * Хост источника: на него действует ограничение числа одновременных запросов.
+     */
+    String host();
+
+    /**
+     * Запрашивает несколько ISBN одним вызовом.
+     *
+     * @return найденные записи по ISBN; отсутствующий ключ означает, что книга не найдена
+     */
+    Map<String, IsbnMetadata> fetch(Collection<String> isbns);
+}
@@ -0,0 +1,110 @@
+package com.booktracker.enrichment;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Open Library Books API: несколько ISBN в одном запросе через bibkeys.
+ * Базовый адрес настраивается (enrichment.isbn.base-url), например на локальную заглушку.
+ */
+@Component
+public class OpenLibraryIsbnSource implements IsbnMetadataSource {
+
+    private static final String KEY_PREFIX = "ISBN:";
+    private static final Pattern YEAR = Pattern.compile("\\b(\\d{4})\\b");
+
+    private final RestTemplate restTemplate;
+    private final URI baseUri;
+
+    public OpenLibraryIsbnSource(RestTemplate restTemplate,
+                                 @Value("${enrichment.isbn.base-url:https://openlibrary.org}") String baseUrl) {
+        this.restTemplate = restTemplate;
+        this.baseUri = URI.create(baseUrl);
+    }
+
+    @Override
+    public String host() {
+        return baseUri.getAuthority();
+    }
+
+    @Override
+    public Map<String, IsbnMetadata> fetch(Collection<String> isbns) {
+        URI uri = UriComponentsBuilder.fromUri(baseUri)
+                .path("/api/books")
+                .queryParam("bibkeys", isbns.stream().map(isbn -> KEY_PREFIX + isbn).collect(Collectors.joining(",")))
+                .queryParam("format", "json")
+                .queryParam("jscmd", "data")
+                .build()
+                .toUri();
+        JsonNode body = restTemplate.getForObject(uri, JsonNode.class);
+
+        Map<String, IsbnMetadata> found = new HashMap<>();
+        if (body == null) {
+            return found;
+        }
+        Iterator<Map.Entry<String, JsonNode>> entries = body.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            if (entry.getKey().startsWith(KEY_PREFIX)) {
+                String isbn = entry.getKey().substring(KEY_PREFIX.length());
+                found.put(isbn, toMetadata(isbn, entry.getValue()));
+            }
+        }
+        return found;
+    }
+
+    private static IsbnMetadata toMetadata(String isbn, JsonNode node) {
+        JsonNode cover = node.path("cover");
+        String coverUrl = cover.hasNonNull("large") ? cover.get("large").asText() : text(cover.get("medium"));
+        JsonNode notes = node.get("notes");
+        String description = notes != null && notes.isObject() ? text(notes.get("value")) : text(notes);
+        return new IsbnMetadata(isbn,
+                text(node.get("title")),
+                names(node.get("authors")),
+                year(text(node.get("publish_date"))),
+                node.hasNonNull("number_of_pages") ? node.get("number_of_pages").asInt() : null,
+                coverUrl,
+                description,
+                names(node.get("subjects")));
+    }
+
+    // publish_date бывает "1869", "March 2004" или "2004-03-01"
+    private static Integer year(String publishDate) {
+        if (publishDate == null) {
+            return null;
+        }
+        Matcher matcher = YEAR.matcher(publishDate);
+        return matcher.find() ? Integer.valueOf(matcher.group(1)) : null;
+    }
+
+    private static List<String> names(JsonNode array) {
+        List<String> names = new ArrayList<>();
+        if (array != null && array.isArray()) {
+            for (JsonNode item : array) {
+                String name = item.isObject() ? text(item.get("name")) : text(item);
+                if (name != null) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+}
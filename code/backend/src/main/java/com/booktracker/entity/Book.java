@@ -3,19 +3,30 @@ package com.booktracker.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Setter;
 
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_book_title", columnList = "title, id"),
+        @Index(name = "idx_book_year", columnList = "year, id"),
+        @Index(name = "idx_book_rating", columnList = "average_rating, id"),
+        @Index(name = "idx_book_chapters", columnList = "chapters"),
+        @Index(name = "idx_book_pages", columnList = "pages")
+})
 @Data
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Book {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Последовательность с пулом id: в отличие от IDENTITY позволяет Hibernate отправлять INSERT пакетами
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "books_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -28,6 +39,13 @@ public class Book {
     @Column(name = "isbn", length = 20)
     private String isbn;
 
+    // ISBN без дефисов и пробелов (см. Isbn.normalize): по нему импорт находит дубликаты, уникальность
+    // защищает от гонки параллельных импортов. Заполняется в setIsbn, а не в @PreUpdate: у старых
+    // дубликатов колонка пуста, и обновление такой книги не должно нарушать ограничение
+    @Column(name = "isbn_normalized", length = 13, unique = true)
+    @Setter(AccessLevel.NONE)
+    private String isbnNormalized;
+
     @Column(name = "year") // Исправлено: в БД поле называется "year", а не "publication_year"
     private Integer year;
 
@@ -37,6 +55,13 @@ public class Book {
     @Column(name = "cover_url", length = 500)
     private String coverUrl;
 
+    // Обложка в локальном хранилище (SHA-256 оригинала) и размытая миниатюра-заглушка в виде data URI
+    @Column(name = "cover_image_id", length = 64)
+    private String coverImageId;
+
+    @Column(name = "cover_placeholder", columnDefinition = "TEXT")
+    private String coverPlaceholder;
+
     @Column(name = "pages")
     private Integer pages;
 
@@ -49,6 +74,30 @@ public class Book {
     @Column(name = "ratings_count")
     private Integer ratingsCount;
 
+    // Гистограмма оценок 1-5 (одобренные отзывы и оценки в коллекциях); averageRating и ratingsCount выводятся из неё
+    @Column(name = "rating_1_count", columnDefinition = "integer default 0")
+    private Integer rating1Count;
+
+    @Column(name = "rating_2_count", columnDefinition = "integer default 0")
+    private Integer rating2Count;
+
+    @Column(name = "rating_3_count", columnDefinition = "integer default 0")
+    private Integer rating3Count;
+
+    @Column(name = "rating_4_count", columnDefinition = "integer default 0")
+    private Integer rating4Count;
+
+    @Column(name = "rating_5_count", columnDefinition = "integer default 0")
+    private Integer rating5Count;
+
+    // Версия для оптимистичной блокировки и HTTP-валидаторов (ETag / Last-Modified)
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "book_authors",
@@ -89,4 +138,41 @@ public class Book {
     public void setYear(Integer year) {
         this.year = year;
     }
+
+    // Число оценок по звёздам: элемент 0 - одна звезда
+    public long[] ratingHistogram() {
+        return new long[]{count(rating1Count), count(rating2Count), count(rating3Count),
+                count(rating4Count), count(rating5Count)};
+    }
+
+    public void applyRatingHistogram(long[] histogram) {
+        rating1Count = (int) histogram[0];
+        rating2Count = (int) histogram[1];
+        rating3Count = (int) histogram[2];
+        rating4Count = (int) histogram[3];
+        rating5Count = (int) histogram[4];
+        long total = 0;
+        long sum = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            total += histogram[i];
+            sum += histogram[i] * (i + 1);
+        }
+        ratingsCount = (int) total;
+        averageRating = total == 0 ? null : (double) sum / total;
+    }
+
+    private static long count(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+        this.isbnNormalized = Isbn.normalize(isbn);
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
 }
\ No newline at end of file
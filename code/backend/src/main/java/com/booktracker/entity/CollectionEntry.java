@@ -1,5 +1,6 @@
 package com.booktracker.entity;
 
+import com.booktracker.rating.CollectionRatingListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -12,6 +13,7 @@ import lombok.EqualsAndHashCode;
         @Index(name = "idx_collection_book", columnList = "book_id"),
         @Index(name = "idx_collection_status", columnList = "status")
 })
+@EntityListeners(CollectionRatingListener.class)
 @Data
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class CollectionEntry {
@@ -40,6 +42,10 @@ public class CollectionEntry {
     @Column(name = "rating")
     private Integer rating;
 
+    // Оценка на момент загрузки или последнего сохранения: по ней считается изменение рейтинга книги
+    @Transient
+    private Integer persistedRating;
+
     public void updateStatus(CollectionStatus newStatus) {
         this.status = newStatus;
     }
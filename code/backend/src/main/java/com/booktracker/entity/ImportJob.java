@@ -0,0 +1,59 @@
+package com.booktracker.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * Задание импорта каталога. processedRecords - контрольная точка: номер последней записи
+ * источника, чья порция зафиксирована в БД; при повторном запуске записи до неё пропускаются.
+ */
+@Entity
+@Table(name = "import_jobs")
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class ImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(name = "source", length = 255)
+    private String source;
+
+    @Column(name = "format", nullable = false, length = 10)
+    private String format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private ImportJobStatus status;
+
+    @Column(name = "processed_records", nullable = false)
+    private long processedRecords;
+
+    @Column(name = "inserted_books", nullable = false)
+    private long insertedBooks;
+
+    @Column(name = "skipped_duplicates", nullable = false)
+    private long skippedDuplicates;
+
+    @Column(name = "invalid_records", nullable = false)
+    private long invalidRecords;
+
+    @Column(name = "created_authors", nullable = false)
+    private long createdAuthors;
+
+    @Column(name = "created_genres", nullable = false)
+    private long createdGenres;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+}
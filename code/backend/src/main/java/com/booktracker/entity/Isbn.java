@@ -0,0 +1,28 @@
+package com.booktracker.entity;
+
+import java.util.Locale;
+
+/**
+ * Единая нормализация ISBN: только цифры (и X последним знаком ISBN-10). По нормализованной форме
+ * книги дедуплицируются при импорте и ищутся во внешнем источнике метаданных.
+ */
+public final class Isbn {
+
+    private Isbn() {
+    }
+
+    // Только ISBN-10 и ISBN-13; прочие значения считаются отсутствующими
+    public static String normalize(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        String digits = isbn.replaceAll("[^0-9Xx]", "").toUpperCase(Locale.ROOT);
+        if (digits.length() == 13 && digits.chars().allMatch(Character::isDigit)) {
+            return digits;
+        }
+        if (digits.length() == 10 && digits.substring(0, 9).chars().allMatch(Character::isDigit)) {
+            return digits;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.booktracker.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сохранённый ответ внешнего источника по ISBN. found = false - книга не найдена
+ * (отрицательный результат хранится короче положительного).
+ */
+@Entity
+@Table(name = "isbn_metadata_cache")
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class IsbnMetadataCacheEntry {
+    @Id
+    @EqualsAndHashCode.Include
+    @Column(name = "isbn", length = 13)
+    private String isbn;
+
+    @Column(name = "found", nullable = false)
+    private boolean found;
+
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+}
@@ -63,12 +63,13 @@ public class Review {
         this.status = ReviewStatus.REJECTED;
     }
 
+    // Оценка учитывается в рейтинге книги только у одобренных отзывов
+    public boolean isApproved() {
+        return status == ReviewStatus.APPROVED;
+    }
+
     public boolean validate() {
         return text != null && !text.trim().isEmpty() &&
                 rating >= 1 && rating <= 5;
     }
 }
-
-enum ReviewStatus {
-    PENDING, APPROVED, REJECTED
-}
\ No newline at end of file
@@ -0,0 +1,5 @@
+package com.booktracker.entity;
+
+public enum ReviewStatus {
+    PENDING, APPROVED, REJECTED
+}
@@ -1,6 +1,7 @@
 // User.java
 package com.booktracker.entity;
 
+import com.booktracker.image.AvatarUrls;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -41,6 +42,11 @@ public class User {
     @Column(unique = true, name = "username")
     private String username;
 
+    // Роль выдаётся только вручную или через security.admin-emails, регистрация создаёт USER
+    @Enumerated(EnumType.STRING)
+    @Column(name = "role", nullable = false, length = 20, columnDefinition = "varchar(20) default 'USER'")
+    private UserRole role = UserRole.USER;
+
     @Column(name = "register_date")
     private LocalDateTime registerDate;
 
@@ -58,8 +64,7 @@ public class User {
     protected void onCreate() {
         registerDate = LocalDateTime.now();
         if (this.avatarUrl == null) {
-            this.avatarUrl = String.format("https://ui-avatars.com/api/?name=%s&background=random&color=fff&size=256",
-                    this.username.replace(" ", "+"));
+            this.avatarUrl = AvatarUrls.url(this.username);
         }
     }
 
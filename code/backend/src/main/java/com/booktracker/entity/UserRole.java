@@ -0,0 +1,5 @@
+package com.booktracker.entity;
+
+public enum UserRole {
+    USER, ADMIN
+}
@@ -0,0 +1,7 @@
+package com.booktracker.event;
+
+/**
+ * Публикуется, когда обложка книги загружена в локальное хранилище и для неё готовы миниатюры.
+ */
+public record BookCoverStoredEvent(Long bookId, String coverImageId) {
+}
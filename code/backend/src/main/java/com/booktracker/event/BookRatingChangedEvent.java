@@ -0,0 +1,7 @@
+package com.booktracker.event;
+
+/**
+ * Публикуется при изменении агрегированного рейтинга книги.
+ */
+public record BookRatingChangedEvent(Long bookId, Double averageRating, Integer ratingsCount) {
+}
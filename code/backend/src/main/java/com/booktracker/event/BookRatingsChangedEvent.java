@@ -0,0 +1,10 @@
+package com.booktracker.event;
+
+import java.util.List;
+
+/**
+ * Публикуется после пачки {@link BookRatingChangedEvent} одного сброса или пересчёта рейтингов:
+ * производные структуры, которым дорого обновляться по одной книге, применяют изменения разом.
+ */
+public record BookRatingsChangedEvent(List<BookRatingChangedEvent> changes) {
+}
@@ -0,0 +1,10 @@
+package com.booktracker.event;
+
+import com.booktracker.entity.Book;
+
+/**
+ * Публикуется после сохранения книги. Слушатели обновляют свои производные структуры
+ * (индексы, счётчики, кэши) без повторного чтения из БД.
+ */
+public record BookSavedEvent(Book book) {
+}
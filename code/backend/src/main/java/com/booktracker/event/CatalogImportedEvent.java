@@ -0,0 +1,10 @@
+package com.booktracker.event;
+
+import java.util.List;
+
+/**
+ * Публикуется после импорта каталога (в том числе прерванного) одним событием на весь прогон:
+ * производные структуры обновляются пакетно, а не по событию на каждую книгу.
+ */
+public record CatalogImportedEvent(List<Long> bookIds, List<Long> authorIds) {
+}
@@ -0,0 +1,9 @@
+package com.booktracker.event;
+
+import com.booktracker.dto.ReviewDTO;
+
+/**
+ * Публикуется после одобрения отзыва, когда изменение уже сохранено.
+ */
+public record ReviewApprovedEvent(ReviewDTO review) {
+}
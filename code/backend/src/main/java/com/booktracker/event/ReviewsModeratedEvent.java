@@ -0,0 +1,12 @@
+package com.booktracker.event;
+
+import com.booktracker.entity.ReviewStatus;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Публикуется внутри транзакции на каждый пакет массовой модерации: отзывы reviewIds получили статус status.
+ */
+public record ReviewsModeratedEvent(ReviewStatus status, List<Long> reviewIds, Set<Long> bookIds) {
+}
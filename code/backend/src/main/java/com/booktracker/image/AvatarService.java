@@ -0,0 +1,78 @@
+package com.booktracker.image;
+
+import com.booktracker.cache.LocalCache;
+import com.booktracker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Аватары-заглушки: SVG с инициалами на цветном фоне, рисуются локально вместо ui-avatars.com.
+ * Цвет выводится из имени, поэтому у пользователя он не меняется между запросами.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AvatarService {
+
+    private static final String LEGACY_AVATAR_PREFIX = "https://ui-avatars.com/";
+
+    private final LocalCache<String, byte[]> avatarCache;
+    private final UserRepository userRepository;
+
+    /**
+     * @return SVG в UTF-8; одинаковые инициалы и цвет дают один и тот же объект из кэша
+     */
+    public byte[] render(String name) {
+        String initials = initials(name);
+        int hue = Math.floorMod(name == null ? 0 : name.hashCode(), 360);
+        return avatarCache.get(initials + "|" + hue, key -> svg(initials, hue));
+    }
+
+    // Ссылки на ui-avatars.com, сохранённые до перехода на локальные аватары
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyAvatars() {
+        List<Object[]> users = userRepository.findIdsAndUsernamesByAvatarUrlPrefix(LEGACY_AVATAR_PREFIX + "%");
+        for (Object[] row : users) {
+            userRepository.updateAvatarUrl((Long) row[0], AvatarUrls.url((String) row[1]));
+        }
+        if (!users.isEmpty()) {
+            log.info("Replaced {} ui-avatars.com avatar URLs with local avatars", users.size());
+        }
+    }
+
+    static String initials(String name) {
+        StringBuilder initials = new StringBuilder(2);
+        if (name != null) {
+            for (String word : name.trim().split("[\\s._-]+")) {
+                if (!word.isEmpty()) {
+                    initials.appendCodePoint(word.codePointAt(0));
+                    if (initials.codePointCount(0, initials.length()) == 2) {
+                        break;
+                    }
+                }
+            }
+        }
+        return initials.isEmpty() ? "?" : initials.toString().toUpperCase(Locale.ROOT);
+    }
+
+    private static byte[] svg(String initials, int hue) {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"256\" height=\"256\" viewBox=\"0 0 256 256\">"
+                + "<rect width=\"256\" height=\"256\" fill=\"hsl(" + hue + ",55%,45%)\"/>"
+                + "<text x=\"50%\" y=\"50%\" dy=\".35em\" text-anchor=\"middle\" fill=\"#fff\" "
+                + "font-family=\"Helvetica,Arial,sans-serif\" font-size=\"104\">" + escape(initials) + "</text></svg>";
+        return svg.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
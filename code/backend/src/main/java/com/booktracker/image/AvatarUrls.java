@@ -0,0 +1,18 @@
+package com.booktracker.image;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Адреса аватаров-заглушек без зависимостей от Spring: нужны и сущности при создании пользователя,
+ * и {@link AvatarService} при миграции старых ссылок.
+ */
+public final class AvatarUrls {
+
+    private AvatarUrls() {
+    }
+
+    public static String url(String name) {
+        return "/api/avatars?name=" + URLEncoder.encode(name == null ? "" : name, StandardCharsets.UTF_8);
+    }
+}
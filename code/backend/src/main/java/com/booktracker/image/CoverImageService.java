@@ -0,0 +1,237 @@
+package com.booktracker.image;
+
+import com.booktracker.entity.Book;
+import com.booktracker.event.BookCoverStoredEvent;
+import com.booktracker.event.BookSavedEvent;
+import com.booktracker.event.CatalogImportedEvent;
+import com.booktracker.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Переносит обложки книг в локальное хранилище: скачивает оригинал, строит миниатюры и заглушку
+ * в фоновом пуле и записывает id изображения в книгу. Запросы пользователей этого не ждут:
+ * пока обложка не обработана, клиент показывает внешний coverUrl.
+ * <p>
+ * Очередь ограничена: при сохранении книги задача отбрасывается, если пул занят, а догрузка
+ * (при старте, после импорта и раз в images.retry-interval-ms) ждёт свободного места. Отброшенные книги
+ * подхватит следующая догрузка. Книга с неудавшейся загрузкой повторяется не раньше чем через
+ * images.retry-backoff-ms, и пауза удваивается с каждой неудачей до images.retry-max-backoff-ms.
+ */
+@Slf4j
+@Service
+public class CoverImageService {
+
+    private static final int BACKFILL_PAGE_SIZE = 500;
+
+    private final BookRepository bookRepository;
+    private final ImageStore imageStore;
+    private final HttpClient httpClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration downloadTimeout;
+    private final int maxDownloadBytes;
+    private final long retryBackoffMs;
+    private final long retryMaxBackoffMs;
+
+    private final ExecutorService workers;
+    private final Semaphore capacity;
+    private final Set<Long> inProgress = ConcurrentHashMap.newKeySet();
+    // Книги, обложку которых не удалось загрузить: догрузка пропускает их до истечения паузы
+    private final Map<Long, Failure> failed = new ConcurrentHashMap<>();
+    private final AtomicBoolean backfillScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService backfillExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cover-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CoverImageService(BookRepository bookRepository,
+                             ImageStore imageStore,
+                             HttpClient httpClient,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${images.workers:2}") int workerCount,
+                             @Value("${images.queue-capacity:100}") int queueCapacity,
+                             @Value("${images.download-timeout-ms:10000}") long downloadTimeoutMs,
+                             @Value("${images.max-download-bytes:10485760}") int maxDownloadBytes,
+                             @Value("${images.retry-interval-ms:300000}") long retryIntervalMs,
+                             @Value("${images.retry-backoff-ms:60000}") long retryBackoffMs,
+                             @Value("${images.retry-max-backoff-ms:86400000}") long retryMaxBackoffMs) {
+        this.bookRepository = bookRepository;
+        this.imageStore = imageStore;
+        this.httpClient = httpClient;
+        this.eventPublisher = eventPublisher;
+        this.downloadTimeout = Duration.ofMillis(downloadTimeoutMs);
+        this.maxDownloadBytes = maxDownloadBytes;
+        this.retryBackoffMs = retryBackoffMs;
+        this.retryMaxBackoffMs = retryMaxBackoffMs;
+        this.capacity = new Semaphore(workerCount + queueCapacity);
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "cover-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        backfillExecutor.scheduleWithFixedDelay(this::scheduleBackfill, retryIntervalMs, retryIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener
+    public void onBookSaved(BookSavedEvent event) {
+        Book book = event.book();
+        if (book.getCoverUrl() != null && book.getCoverImageId() == null && capacity.tryAcquire()) {
+            submit(book.getId(), book.getCoverUrl());
+        }
+    }
+
+    @EventListener({ApplicationReadyEvent.class, CatalogImportedEvent.class})
+    public void scheduleBackfill() {
+        if (backfillScheduled.compareAndSet(false, true)) {
+            backfillExecutor.execute(() -> {
+                backfillScheduled.set(false);
+                backfill();
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void backfill() {
+        long afterId = 0;
+        int submitted = 0;
+        long now = System.currentTimeMillis();
+        try {
+            while (true) {
+                List<Object[]> rows = bookRepository.findPendingCovers(afterId, PageRequest.of(0, BACKFILL_PAGE_SIZE));
+                for (Object[] row : rows) {
+                    Long bookId = (Long) row[0];
+                    Failure failure = failed.get(bookId);
+                    if ((failure == null || failure.retryAt() <= now) && !inProgress.contains(bookId)) {
+                        capacity.acquire();
+                        submit(bookId, (String) row[1]);
+                        submitted++;
+                    }
+                }
+                if (rows.size() < BACKFILL_PAGE_SIZE) {
+                    break;
+                }
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Cover backfill stopped: {}", e.getMessage());
+        }
+        if (submitted > 0) {
+            log.info("Cover backfill queued {} books", submitted);
+        }
+    }
+
+    // Вызывается с уже занятым местом в очереди
+    private void submit(Long bookId, String coverUrl) {
+        if (!inProgress.add(bookId)) {
+            capacity.release();
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    ingest(bookId, coverUrl);
+                } finally {
+                    inProgress.remove(bookId);
+                    capacity.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inProgress.remove(bookId);
+            capacity.release();
+            throw e;
+        }
+    }
+
+    private void ingest(Long bookId, String coverUrl) {
+        try {
+            byte[] content = download(coverUrl);
+            BufferedImage image = ImageProcessor.decode(content);
+            String imageId = ImageStore.idOf(content);
+            for (ImageVariant variant : ImageVariant.values()) {
+                if (variant != ImageVariant.ORIGINAL && !imageStore.exists(imageId, variant)) {
+                    imageStore.write(imageId, variant, ImageProcessor.thumbnail(image, variant.getWidth()));
+                }
+            }
+            // Оригинал пишется последним: его наличие означает, что все варианты готовы
+            imageStore.write(imageId, ImageVariant.ORIGINAL, content);
+            String placeholder = ImageProcessor.placeholder(image);
+            if (bookRepository.updateCoverImage(bookId, coverUrl, imageId, placeholder, LocalDateTime.now()) > 0) {
+                eventPublisher.publishEvent(new BookCoverStoredEvent(bookId, imageId));
+            }
+            failed.remove(bookId);
+        } catch (IOException | RuntimeException e) {
+            Failure failure = failed.compute(bookId, (id, previous) -> nextFailure(previous));
+            log.warn("Failed to store cover for book {} from {} (attempt {}): {}",
+                    bookId, coverUrl, failure.attempts(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Failure nextFailure(Failure previous) {
+        int attempts = previous == null ? 1 : previous.attempts() + 1;
+        long backoff = retryBackoffMs << Math.min(attempts - 1, 30);
+        if (backoff <= 0 || backoff > retryMaxBackoffMs) {
+            backoff = retryMaxBackoffMs;
+        }
+        return new Failure(attempts, System.currentTimeMillis() + backoff);
+    }
+
+    private byte[] download(String coverUrl) throws IOException, InterruptedException {
+        URI uri = URI.create(coverUrl.trim());
+        if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+            throw new IOException("Unsupported cover URL scheme: " + uri.getScheme());
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(downloadTimeout).GET().build();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            byte[] content = body.readNBytes(maxDownloadBytes + 1);
+            if (content.length > maxDownloadBytes) {
+                throw new IOException("Cover is larger than " + maxDownloadBytes + " bytes");
+            }
+            return content;
+        }
+    }
+
+    private record Failure(int attempts, long retryAt) {
+    }
+}
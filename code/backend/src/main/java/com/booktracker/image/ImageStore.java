@@ -0,0 +1,94 @@
+package com.booktracker.image;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Хранилище изображений на диске с адресацией по содержимому: id - SHA-256 оригинала,
+ * файлы лежат в {root}/{первые 2 символа id}/{id}/{вариант}. Одинаковые картинки хранятся один раз,
+ * а файл по id никогда не меняется, поэтому его можно кэшировать бессрочно.
+ * Запись идёт во временный файл с последующим атомарным переименованием.
+ */
+@Component
+public class ImageStore {
+
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+
+    public ImageStore(@Value("${images.store-dir:./data/images}") String root) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+    }
+
+    public static boolean isValidId(String id) {
+        return id != null && ID.matcher(id).matches();
+    }
+
+    public static String idOf(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String url(String id, ImageVariant variant) {
+        return id == null ? null : "/api/images/" + id + "/" + variant.getFileName();
+    }
+
+    /**
+     * Сохраняет оригинал, если такого содержимого ещё нет.
+     *
+     * @return id изображения
+     */
+    public String storeOriginal(byte[] content) {
+        String id = idOf(content);
+        write(id, ImageVariant.ORIGINAL, content);
+        return id;
+    }
+
+    public void write(String id, ImageVariant variant, byte[] content) {
+        Path target = path(id, variant);
+        if (Files.exists(target)) {
+            return;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), variant.name(), ".tmp");
+            try {
+                Files.write(temp, content);
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store image " + id, e);
+        }
+    }
+
+    public boolean exists(String id, ImageVariant variant) {
+        return Files.exists(path(id, variant));
+    }
+
+    public Path path(String id, ImageVariant variant) {
+        if (!isValidId(id)) {
+            throw new IllegalArgumentException("Invalid image id: " + id);
+        }
+        return root.resolve(id.substring(0, 2)).resolve(id).resolve(variant.getFileName());
+    }
+}
@@ -0,0 +1,35 @@
+package com.booktracker.image;
+
+/**
+ * Варианты хранимого изображения. Оригинал сохраняется как есть, миниатюры - JPEG фиксированной ширины.
+ */
+public enum ImageVariant {
+    ORIGINAL("original", 0),
+    THUMB_SMALL("thumb-160.jpg", 160),
+    THUMB_LARGE("thumb-320.jpg", 320);
+
+    private final String fileName;
+    private final int width;
+
+    ImageVariant(String fileName, int width) {
+        this.fileName = fileName;
+        this.width = width;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public static ImageVariant fromFileName(String fileName) {
+        for (ImageVariant variant : values()) {
+            if (variant.fileName.equals(fileName)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+}
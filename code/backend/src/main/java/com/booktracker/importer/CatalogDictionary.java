@@ -0,0 +1,83 @@
+package com.booktracker.importer;
+
+import com.booktracker.entity.Author;
+import com.booktracker.entity.Genre;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Словарь авторов и жанров импорта: ключ имени -> id. Загружается один раз в начале прогона,
+ * поэтому разрешение связей не обращается к БД. Созданные в порции записи становятся видимыми
+ * только после фиксации её транзакции, чтобы откат порции не оставил в словаре несуществующих id.
+ */
+class CatalogDictionary {
+
+    private final Map<String, Long> authors = new HashMap<>();
+    private final Map<String, Long> genres = new HashMap<>();
+    private final Map<String, Author> pendingAuthors = new HashMap<>();
+    private final Map<String, Genre> pendingGenres = new HashMap<>();
+
+    void putAuthor(String name, Long id) {
+        authors.putIfAbsent(ImportNormalizer.nameKey(name), id);
+    }
+
+    void putGenre(String name, Long id) {
+        genres.putIfAbsent(ImportNormalizer.nameKey(name), id);
+    }
+
+    Long authorId(String name) {
+        return authors.get(ImportNormalizer.nameKey(name));
+    }
+
+    Long genreId(String name) {
+        return genres.get(ImportNormalizer.nameKey(name));
+    }
+
+    Author pendingAuthor(String name) {
+        return pendingAuthors.get(ImportNormalizer.nameKey(name));
+    }
+
+    Genre pendingGenre(String name) {
+        return pendingGenres.get(ImportNormalizer.nameKey(name));
+    }
+
+    void addPending(Author author) {
+        pendingAuthors.put(ImportNormalizer.nameKey(author.getName()), author);
+    }
+
+    void addPending(Genre genre) {
+        pendingGenres.put(ImportNormalizer.nameKey(genre.getName()), genre);
+    }
+
+    int pendingAuthorCount() {
+        return pendingAuthors.size();
+    }
+
+    int pendingGenreCount() {
+        return pendingGenres.size();
+    }
+
+    /**
+     * Переносит созданные в порции записи в словарь.
+     *
+     * @return id созданных авторов
+     */
+    List<Long> commitPending() {
+        List<Long> authorIds = new ArrayList<>(pendingAuthors.size());
+        pendingAuthors.forEach((key, author) -> {
+            authors.put(key, author.getId());
+            authorIds.add(author.getId());
+        });
+        pendingGenres.forEach((key, genre) -> genres.put(key, genre.getId()));
+        discardPending();
+        return authorIds;
+    }
+
+    void discardPending() {
+        pendingAuthors.clear();
+        pendingGenres.clear();
+    }
+}
@@ -0,0 +1,540 @@
+package com.booktracker.importer;
+
+import com.booktracker.dto.ImportJobDTO;
+import com.booktracker.enrichment.IsbnEnrichmentService;
+import com.booktracker.enrichment.IsbnMetadata;
+import com.booktracker.entity.Author;
+import com.booktracker.entity.Book;
+import com.booktracker.entity.Genre;
+import com.booktracker.entity.ImportJob;
+import com.booktracker.entity.ImportJobStatus;
+import com.booktracker.entity.Isbn;
+import com.booktracker.event.CatalogImportedEvent;
+import com.booktracker.repository.AuthorRepository;
+import com.booktracker.repository.BookRepository;
+import com.booktracker.repository.GenreRepository;
+import com.booktracker.repository.ImportJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Пакетный импорт каталога из CSV или JSON Lines.
+ * <p>
+ * Конвейер из двух потоков с ограниченной очередью между ними: поток разбора читает и нормализует
+ * записи и собирает их в порции, вызывающий поток разрешает авторов и жанры по словарю в памяти,
+ * отбрасывает дубликаты по ISBN и сохраняет порцию одной транзакцией. Пакетные INSERT возможны
+ * благодаря id из последовательности с пулом. Вместе с порцией в той же транзакции сохраняется
+ * контрольная точка задания, поэтому повторный запуск с тем же jobId продолжает с первой
+ * незафиксированной записи.
+ * <p>
+ * Задания выполняются в фоне на отдельном ограниченном пуле: тело запроса сначала сохраняется во временный
+ * файл, вызывающий сразу получает id задания и следит за прогрессом через {@link #getJob(Long)}.
+ * Дубликаты определяются по нормализованному ISBN ({@link Isbn}), уникальная колонка isbn_normalized
+ * не даёт параллельным импортам вставить одну книгу дважды.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogImporter {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final int LOG_EVERY_BATCHES = 20;
+    private static final int ERROR_LENGTH = 1000;
+    private static final long ENRICH_TIMEOUT_MS = 30_000;
+    private static final Batch END = new Batch(List.of(), 0, 0);
+    private static final int MAX_RUNNING_JOBS = 2;
+    private static final int MAX_QUEUED_JOBS = 8;
+    private static final int BACKFILL_CHUNK_SIZE = 500;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final GenreRepository genreRepository;
+    private final ImportJobRepository importJobRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final IsbnEnrichmentService isbnEnrichmentService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Одно задание не должно выполняться двумя запросами одновременно
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_RUNNING_JOBS, MAX_RUNNING_JOBS,
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_QUEUED_JOBS), runnable -> {
+                Thread thread = new Thread(runnable, "catalog-import-job");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    @PreDestroy
+    public void shutdown() {
+        // Прерванные задания помечаются FAILED и продолжаются повторной отправкой с тем же jobId
+        executor.shutdownNow();
+    }
+
+    /**
+     * Заполняет isbn_normalized у книг, сохранённых до появления колонки. Из книг с одинаковым ISBN
+     * значение получает только первая: остальные - уже существующие дубликаты, уникальность их не касается.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillNormalizedIsbns() {
+        Set<String> seen = new HashSet<>(bookRepository.findAllNormalizedIsbns());
+        long updated = 0;
+        long duplicates = 0;
+        long afterId = 0;
+        while (true) {
+            List<Object[]> rows = bookRepository.findUnnormalizedIsbns(afterId, PageRequest.of(0, BACKFILL_CHUNK_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (Object[] row : rows) {
+                String isbn = Isbn.normalize((String) row[1]);
+                if (isbn == null) {
+                    continue;
+                }
+                if (seen.add(isbn)) {
+                    bookRepository.updateNormalizedIsbn((Long) row[0], isbn);
+                    updated++;
+                } else {
+                    duplicates++;
+                }
+            }
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+        if (updated > 0 || duplicates > 0) {
+            log.info("Normalized ISBN backfill: {} books updated, {} existing duplicates left without key", updated, duplicates);
+        }
+    }
+
+    /**
+     * Создаёт новое задание или возвращает существующее для продолжения с контрольной точки.
+     */
+    public ImportJob startJob(Long jobId, ImportFormat format, String source) {
+        ImportJob job;
+        if (jobId == null) {
+            job = new ImportJob();
+            job.setFormat(format.name());
+            job.setSource(source);
+        } else {
+            job = importJobRepository.findById(jobId)
+                    .orElseThrow(() -> new RuntimeException("Import job not found with id: " + jobId));
+            if (runningJobs.contains(jobId)) {
+                throw new IllegalStateException("Import job " + jobId + " is already running");
+            }
+            if (job.getStatus() == ImportJobStatus.COMPLETED) {
+                throw new IllegalStateException("Import job " + jobId + " is already completed");
+            }
+            if (!job.getFormat().equals(format.name())) {
+                throw new IllegalArgumentException("Import job " + jobId + " was started with format " + job.getFormat());
+            }
+        }
+        job.setStatus(ImportJobStatus.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        job.setUpdatedAt(job.getStartedAt());
+        job.setError(null);
+        job = importJobRepository.save(job);
+        if (!runningJobs.add(job.getId())) {
+            throw new IllegalStateException("Import job " + job.getId() + " is already running");
+        }
+        return job;
+    }
+
+    /**
+     * Сохраняет тело запроса во временный файл и ставит задание в очередь пула импорта.
+     *
+     * @return состояние задания на момент постановки в очередь
+     * @throws IllegalStateException если очередь заданий заполнена
+     */
+    public ImportJobDTO submit(ImportJob job, InputStream input, boolean enrich) {
+        Path file;
+        try {
+            file = Files.createTempFile("catalog-import-" + job.getId() + "-", ".tmp");
+            try {
+                Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                deleteQuietly(file);
+                throw e;
+            }
+        } catch (IOException e) {
+            return convertToDTO(markFailed(job, e));
+        }
+        ImportJobDTO accepted = convertToDTO(job);
+        try {
+            executor.execute(() -> {
+                try (InputStream in = Files.newInputStream(file)) {
+                    run(job, in, enrich);
+                } catch (IOException e) {
+                    markFailed(job, e);
+                } finally {
+                    deleteQuietly(file);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            deleteQuietly(file);
+            markFailed(job, new IllegalStateException("Too many import jobs are queued"));
+            throw new IllegalStateException("Too many import jobs are queued", e);
+        }
+        return accepted;
+    }
+
+    /**
+     * Выполняет задание до конца источника в текущем потоке, прогресс доступен через {@link #getJob(Long)}.
+     * При enrich = true недостающие поля записей с ISBN дополняются из внешнего источника метаданных.
+     */
+    ImportJob run(ImportJob job, InputStream input, boolean enrich) {
+        List<Long> bookIds = new ArrayList<>();
+        List<Long> authorIds = new ArrayList<>();
+        try {
+            CatalogDictionary dictionary = loadDictionary();
+            ImportFormat format = ImportFormat.valueOf(job.getFormat());
+            BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            AtomicReference<Exception> parseError = new AtomicReference<>();
+            long resumeAfter = job.getProcessedRecords();
+
+            Thread parser = new Thread(() -> parse(input, format, resumeAfter, enrich, queue, parseError),
+                    "catalog-import-" + job.getId());
+            parser.start();
+            try {
+                long started = System.nanoTime();
+                int batches = 0;
+                for (Batch batch = queue.take(); batch != END; batch = queue.take()) {
+                    writeBatch(job, batch, dictionary, bookIds, authorIds);
+                    if (++batches % LOG_EVERY_BATCHES == 0) {
+                        log.info("Import job {}: {} records processed, {} books inserted, {} records/s",
+                                job.getId(), job.getProcessedRecords(), job.getInsertedBooks(),
+                                Math.round(perSecond(job.getProcessedRecords() - resumeAfter,
+                                        Duration.ofNanos(System.nanoTime() - started))));
+                    }
+                }
+            } finally {
+                parser.interrupt();
+                parser.join();
+            }
+            if (parseError.get() != null) {
+                throw parseError.get();
+            }
+            job.setStatus(ImportJobStatus.COMPLETED);
+            log.info("Import job {} completed: {} books inserted, {} duplicates, {} invalid records",
+                    job.getId(), job.getInsertedBooks(), job.getSkippedDuplicates(), job.getInvalidRecords());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Import job {} failed after record {}", job.getId(), job.getProcessedRecords(), e);
+            // Счётчики берутся из последней зафиксированной контрольной точки
+            job = importJobRepository.findById(job.getId()).orElse(job);
+            job.setStatus(ImportJobStatus.FAILED);
+            String message = String.valueOf(e.getMessage());
+            job.setError(message.length() > ERROR_LENGTH ? message.substring(0, ERROR_LENGTH) : message);
+        } finally {
+            job.setUpdatedAt(LocalDateTime.now());
+            job = importJobRepository.save(job);
+            runningJobs.remove(job.getId());
+            // Зафиксированные порции индексируются и при ошибке, иначе они появятся в поиске только после перезапуска
+            if (!bookIds.isEmpty() || !authorIds.isEmpty()) {
+                eventPublisher.publishEvent(new CatalogImportedEvent(bookIds, authorIds));
+            }
+        }
+        return job;
+    }
+
+    private ImportJob markFailed(ImportJob job, Exception e) {
+        log.error("Import job {} failed before start", job.getId(), e);
+        job.setStatus(ImportJobStatus.FAILED);
+        String message = String.valueOf(e.getMessage());
+        job.setError(message.length() > ERROR_LENGTH ? message.substring(0, ERROR_LENGTH) : message);
+        job.setUpdatedAt(LocalDateTime.now());
+        job = importJobRepository.save(job);
+        runningJobs.remove(job.getId());
+        return job;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete import spool file {}: {}", file, e.getMessage());
+        }
+    }
+
+    public ImportJobDTO getJob(Long id) {
+        return importJobRepository.findById(id)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new RuntimeException("Import job not found with id: " + id));
+    }
+
+    public ImportJobDTO convertToDTO(ImportJob job) {
+        ImportJobDTO dto = new ImportJobDTO();
+        dto.setId(job.getId());
+        dto.setSource(job.getSource());
+        dto.setFormat(job.getFormat());
+        dto.setStatus(job.getStatus().name());
+        dto.setProcessedRecords(job.getProcessedRecords());
+        dto.setInsertedBooks(job.getInsertedBooks());
+        dto.setSkippedDuplicates(job.getSkippedDuplicates());
+        dto.setInvalidRecords(job.getInvalidRecords());
+        dto.setCreatedAuthors(job.getCreatedAuthors());
+        dto.setCreatedGenres(job.getCreatedGenres());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        dto.setError(job.getError());
+        if (job.getStartedAt() != null && job.getUpdatedAt() != null) {
+            dto.setRecordsPerSecond(perSecond(job.getProcessedRecords(),
+                    Duration.between(job.getStartedAt(), job.getUpdatedAt())));
+        }
+        return dto;
+    }
+
+    private CatalogDictionary loadDictionary() {
+        CatalogDictionary dictionary = new CatalogDictionary();
+        for (Object[] row : authorRepository.findIdsAndNames()) {
+            dictionary.putAuthor((String) row[1], (Long) row[0]);
+        }
+        for (Genre genre : genreRepository.findAll()) {
+            dictionary.putGenre(genre.getName(), genre.getId());
+        }
+        return dictionary;
+    }
+
+    // Поток разбора: чтение, нормализация, сборка порций; при заполненной очереди ждёт запись в БД
+    private void parse(InputStream input, ImportFormat format, long resumeAfter, boolean enrich,
+                       BlockingQueue<Batch> queue, AtomicReference<Exception> error) {
+        try (ImportRecordReader reader = openReader(input, format)) {
+            List<ImportRecord> records = new ArrayList<>(BATCH_SIZE);
+            int invalid = 0;
+            long last = resumeAfter;
+            for (ImportRecord record = reader.read(); record != null; record = reader.read()) {
+                if (record.number() <= resumeAfter) {
+                    continue;
+                }
+                last = record.number();
+                ImportRecord normalized = ImportNormalizer.normalize(record);
+                if (normalized == null) {
+                    invalid++;
+                } else {
+                    records.add(normalized);
+                }
+                if (records.size() + invalid >= BATCH_SIZE) {
+                    queue.put(new Batch(enrich ? enrich(records) : records, invalid, last));
+                    records = new ArrayList<>(BATCH_SIZE);
+                    invalid = 0;
+                }
+            }
+            if (!records.isEmpty() || invalid > 0) {
+                queue.put(new Batch(enrich ? enrich(records) : records, invalid, last));
+            }
+        } catch (InterruptedException e) {
+            // Прерывает только поток записи, который уже не ждёт END
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            error.set(e);
+        } catch (Error e) {
+            // OOM или переполнение стека: поток записи должен завершиться с ошибкой, а не ждать END вечно
+            error.set(new IllegalStateException("Import parser failed: " + e, e));
+            throw e;
+        } finally {
+            if (!Thread.currentThread().isInterrupted()) {
+                try {
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // Ожидание ответа идёт в потоке разбора: запись предыдущих порций в БД при этом продолжается
+    private List<ImportRecord> enrich(List<ImportRecord> records) throws InterruptedException {
+        List<String> isbns = records.stream()
+                .filter(record -> record.isbn() != null && isIncomplete(record))
+                .map(ImportRecord::isbn)
+                .toList();
+        if (isbns.isEmpty()) {
+            return records;
+        }
+        Map<String, IsbnMetadata> found;
+        try {
+            found = isbnEnrichmentService.lookupAll(isbns).get(ENRICH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("ISBN enrichment skipped for a batch of {} records: {}", records.size(), e.toString());
+            return records;
+        }
+        List<ImportRecord> enriched = new ArrayList<>(records.size());
+        for (ImportRecord record : records) {
+            IsbnMetadata metadata = record.isbn() == null ? null : found.get(record.isbn());
+            enriched.add(metadata == null ? record : ImportNormalizer.normalize(merge(record, metadata)));
+        }
+        return enriched;
+    }
+
+    private static boolean isIncomplete(ImportRecord record) {
+        return record.year() == null || record.pages() == null || record.description() == null
+                || record.coverUrl() == null || record.authors().isEmpty();
+    }
+
+    // Значения из источника импорта приоритетнее внешних
+    private static ImportRecord merge(ImportRecord record, IsbnMetadata metadata) {
+        return new ImportRecord(record.number(),
+                record.title(),
+                record.isbn(),
+                record.year() != null ? record.year() : metadata.year(),
+                record.description() != null ? record.description() : metadata.description(),
+                record.coverUrl() != null ? record.coverUrl() : metadata.coverUrl(),
+                record.pages() != null ? record.pages() : metadata.pages(),
+                record.chapters(),
+                record.authors().isEmpty() ? metadata.authors() : record.authors(),
+                record.genres());
+    }
+
+    private ImportRecordReader openReader(InputStream input, ImportFormat format) throws IOException {
+        InputStreamReader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        return switch (format) {
+            case CSV -> new CsvImportReader(reader, ',');
+            case JSONL -> new JsonlImportReader(reader, objectMapper);
+        };
+    }
+
+    private void writeBatch(ImportJob job, Batch batch, CatalogDictionary dictionary,
+                            List<Long> bookIds, List<Long> authorIds) {
+        List<Long> insertedIds = new ArrayList<>(batch.records().size());
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Set<String> existingIsbns = findExistingIsbns(batch.records());
+                Set<String> seenIsbns = new HashSet<>();
+                long duplicates = 0;
+                for (ImportRecord record : batch.records()) {
+                    String isbn = record.isbn();
+                    if (isbn != null && (existingIsbns.contains(isbn) || !seenIsbns.add(isbn))) {
+                        duplicates++;
+                        continue;
+                    }
+                    Book book = toBook(record, dictionary);
+                    entityManager.persist(book);
+                    insertedIds.add(book.getId());
+                }
+
+                job.setProcessedRecords(batch.lastRecordNumber());
+                job.setInsertedBooks(job.getInsertedBooks() + insertedIds.size());
+                job.setSkippedDuplicates(job.getSkippedDuplicates() + duplicates);
+                job.setInvalidRecords(job.getInvalidRecords() + batch.invalid());
+                job.setCreatedAuthors(job.getCreatedAuthors() + dictionary.pendingAuthorCount());
+                job.setCreatedGenres(job.getCreatedGenres() + dictionary.pendingGenreCount());
+                job.setUpdatedAt(LocalDateTime.now());
+                entityManager.merge(job);
+                entityManager.flush();
+                // Порция больше не нужна в контексте персистентности
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            dictionary.discardPending();
+            throw e;
+        }
+        authorIds.addAll(dictionary.commitPending());
+        bookIds.addAll(insertedIds);
+    }
+
+    private Set<String> findExistingIsbns(List<ImportRecord> records) {
+        Set<String> isbns = new HashSet<>();
+        for (ImportRecord record : records) {
+            if (record.isbn() != null) {
+                isbns.add(record.isbn());
+            }
+        }
+        return isbns.isEmpty() ? Set.of() : new HashSet<>(bookRepository.findExistingIsbns(isbns));
+    }
+
+    private Book toBook(ImportRecord record, CatalogDictionary dictionary) {
+        Book book = new Book();
+        book.setTitle(record.title());
+        book.setIsbn(record.isbn());
+        book.setYear(record.year());
+        book.setDescription(record.description());
+        book.setCoverUrl(record.coverUrl());
+        book.setPages(record.pages());
+        book.setChapters(record.chapters());
+        for (String name : record.authors()) {
+            book.getAuthors().add(resolveAuthor(name, dictionary));
+        }
+        for (String name : record.genres()) {
+            book.getGenres().add(resolveGenre(name, dictionary));
+        }
+        return book;
+    }
+
+    // Существующие связи ставятся ссылками по id без загрузки сущности
+    private Author resolveAuthor(String name, CatalogDictionary dictionary) {
+        Long id = dictionary.authorId(name);
+        if (id != null) {
+            return entityManager.getReference(Author.class, id);
+        }
+        Author author = dictionary.pendingAuthor(name);
+        if (author == null) {
+            author = new Author();
+            author.setName(name);
+            entityManager.persist(author);
+            dictionary.addPending(author);
+        }
+        return author;
+    }
+
+    private Genre resolveGenre(String name, CatalogDictionary dictionary) {
+        Long id = dictionary.genreId(name);
+        if (id != null) {
+            return entityManager.getReference(Genre.class, id);
+        }
+        Genre genre = dictionary.pendingGenre(name);
+        if (genre == null) {
+            genre = new Genre();
+            genre.setName(name);
+            entityManager.persist(genre);
+            dictionary.addPending(genre);
+        }
+        return genre;
+    }
+
+    private static double perSecond(long count, Duration elapsed) {
+        long millis = elapsed.toMillis();
+        return millis <= 0 ? 0 : count * 1000.0 / millis;
+    }
+
+    private record Batch(List<ImportRecord> records, int invalid, long lastRecordNumber) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.booktracker.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV по RFC 4180: первая строка - заголовок, поля в кавычках могут содержать разделитель,
+ * переводы строк и удвоенные кавычки. Разбор посимвольный, без буферизации файла целиком.
+ */
+public class CsvImportReader implements ImportRecordReader {
+
+    private final BufferedReader reader;
+    private final char delimiter;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long number;
+
+    public CsvImportReader(Reader reader, char delimiter) throws IOException {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.delimiter = delimiter;
+        List<String> header = readRow();
+        if (header == null) {
+            return;
+        }
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i);
+            // BOM в начале файла из Excel
+            if (i == 0 && !name.isEmpty() && name.charAt(0) == '\uFEFF') {
+                name = name.substring(1);
+            }
+            columns.put(ImportFields.key(name), i);
+        }
+    }
+
+    @Override
+    public ImportRecord read() throws IOException {
+        List<String> row;
+        do {
+            row = readRow();
+            if (row == null) {
+                return null;
+            }
+        } while (row.size() == 1 && row.get(0).isEmpty());
+
+        Integer year = ImportFields.parseInt(field(row, ImportFields.YEAR));
+        if (year == null) {
+            year = ImportFields.parseInt(field(row, ImportFields.PUBLICATION_YEAR));
+        }
+        return new ImportRecord(++number,
+                field(row, ImportFields.TITLE),
+                field(row, ImportFields.ISBN),
+                year,
+                field(row, ImportFields.DESCRIPTION),
+                field(row, ImportFields.COVER_URL),
+                ImportFields.parseInt(field(row, ImportFields.PAGES)),
+                ImportFields.parseInt(field(row, ImportFields.CHAPTERS)),
+                ImportFields.splitList(field(row, ImportFields.AUTHORS)),
+                ImportFields.splitList(field(row, ImportFields.GENRES)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String field(List<String> row, String key) {
+        Integer index = columns.get(key);
+        return index == null || index >= row.size() ? null : row.get(index);
+    }
+
+    private List<String> readRow() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> row = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field in CSV record " + (number + 1));
+                }
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == -1 || c == '\n') {
+                row.add(field.toString());
+                return row;
+            } else if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                row.add(field.toString());
+                return row;
+            } else if (c == delimiter) {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.booktracker.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Общие правила разбора полей: имена колонок без учёта регистра и разделителей
+ * (cover_url, coverUrl, Cover URL), списки авторов и жанров через '|' или ';'.
+ */
+final class ImportFields {
+
+    static final String TITLE = "title";
+    static final String ISBN = "isbn";
+    static final String YEAR = "year";
+    static final String PUBLICATION_YEAR = "publicationyear";
+    static final String DESCRIPTION = "description";
+    static final String COVER_URL = "coverurl";
+    static final String PAGES = "pages";
+    static final String CHAPTERS = "chapters";
+    static final String AUTHORS = "authors";
+    static final String GENRES = "genres";
+
+    private ImportFields() {
+    }
+
+    static String key(String name) {
+        return name.replaceAll("[^\\p{L}\\p{N}]", "").toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        if (value == null) {
+            return items;
+        }
+        for (String item : value.split("[|;]")) {
+            if (!item.isBlank()) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    // Нечисловое значение не отбрасывает запись целиком: поле просто остаётся пустым
+    static Integer parseInt(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.booktracker.importer;
+
+public enum ImportFormat {
+    CSV, JSONL;
+
+    public static ImportFormat fromCode(String code) {
+        for (ImportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(code)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import format: " + code);
+    }
+}
@@ -0,0 +1,79 @@
+package com.booktracker.importer;
+
+import com.booktracker.entity.Isbn;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Приводит запись к виду, в котором она сохраняется: схлопывает пробелы, обрезает поля по длине колонок,
+ * оставляет в ISBN только цифры и X. Запись без названия считается некорректной.
+ */
+public final class ImportNormalizer {
+
+    private static final int TITLE_LENGTH = 255;
+    private static final int COVER_URL_LENGTH = 500;
+    private static final int NAME_LENGTH = 255;
+    private static final int GENRE_LENGTH = 100;
+
+    private ImportNormalizer() {
+    }
+
+    /**
+     * @return нормализованная запись или null, если запись некорректна
+     */
+    public static ImportRecord normalize(ImportRecord record) {
+        String title = truncate(clean(record.title()), TITLE_LENGTH);
+        if (title == null) {
+            return null;
+        }
+        return new ImportRecord(record.number(),
+                title,
+                Isbn.normalize(record.isbn()),
+                positive(record.year()),
+                blankToNull(record.description() == null ? null : record.description().trim()),
+                truncate(clean(record.coverUrl()), COVER_URL_LENGTH),
+                positive(record.pages()),
+                positive(record.chapters()),
+                names(record.authors(), NAME_LENGTH),
+                names(record.genres(), GENRE_LENGTH));
+    }
+
+    /**
+     * Ключ словаря авторов и жанров: имена, отличающиеся регистром и пробелами, считаются одним.
+     */
+    public static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> names(List<String> values, int maxLength) {
+        // Дубликаты внутри записи убираются без учёта регистра, порядок сохраняется
+        Map<String, String> unique = new LinkedHashMap<>();
+        for (String value : values) {
+            String name = truncate(clean(value), maxLength);
+            if (name != null) {
+                unique.putIfAbsent(nameKey(name), name);
+            }
+        }
+        return new ArrayList<>(unique.values());
+    }
+
+    private static String clean(String value) {
+        return value == null ? null : blankToNull(value.replaceAll("\\s+", " ").trim());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    private static Integer positive(Integer value) {
+        return value == null || value <= 0 ? null : value;
+    }
+}
@@ -0,0 +1,11 @@
+package com.booktracker.importer;
+
+import java.util.List;
+
+/**
+ * Запись источника импорта. number - порядковый номер записи (с 1), по нему ведутся контрольные точки.
+ */
+public record ImportRecord(long number, String title, String isbn, Integer year, String description,
+                           String coverUrl, Integer pages, Integer chapters,
+                           List<String> authors, List<String> genres) {
+}
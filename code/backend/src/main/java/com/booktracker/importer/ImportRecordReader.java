@@ -0,0 +1,15 @@
+package com.booktracker.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Потоковое чтение записей источника: в памяти держится только текущая запись.
+ */
+public interface ImportRecordReader extends Closeable {
+
+    /**
+     * @return следующая запись или null, если источник закончился
+     */
+    ImportRecord read() throws IOException;
+}
@@ -0,0 +1,100 @@
+package com.booktracker.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON Lines: один объект на строку. Авторы и жанры - массив строк или строка через '|' / ';'.
+ * Строка с некорректным JSON становится записью без полей и отбрасывается при нормализации.
+ */
+public class JsonlImportReader implements ImportRecordReader {
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private long number;
+
+    public JsonlImportReader(Reader reader, ObjectMapper objectMapper) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ImportRecord read() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        Map<String, JsonNode> fields = new HashMap<>();
+        try {
+            Iterator<Map.Entry<String, JsonNode>> iterator = objectMapper.readTree(line).fields();
+            while (iterator.hasNext()) {
+                Map.Entry<String, JsonNode> entry = iterator.next();
+                fields.put(ImportFields.key(entry.getKey()), entry.getValue());
+            }
+        } catch (IOException e) {
+            fields.clear();
+        }
+
+        Integer year = integer(fields.get(ImportFields.YEAR));
+        if (year == null) {
+            year = integer(fields.get(ImportFields.PUBLICATION_YEAR));
+        }
+        return new ImportRecord(++number,
+                text(fields.get(ImportFields.TITLE)),
+                text(fields.get(ImportFields.ISBN)),
+                year,
+                text(fields.get(ImportFields.DESCRIPTION)),
+                text(fields.get(ImportFields.COVER_URL)),
+                integer(fields.get(ImportFields.PAGES)),
+                integer(fields.get(ImportFields.CHAPTERS)),
+                list(fields.get(ImportFields.AUTHORS)),
+                list(fields.get(ImportFields.GENRES)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static Integer integer(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        return node.isNumber() ? Integer.valueOf(node.asInt()) : ImportFields.parseInt(node.asText());
+    }
+
+    private static List<String> list(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return new ArrayList<>();
+        }
+        if (!node.isArray()) {
+            return ImportFields.splitList(node.asText());
+        }
+        List<String> items = new ArrayList<>();
+        for (JsonNode item : node) {
+            // Элемент может быть объектом автора {"name": ...}
+            String value = item.isObject() ? text(item.get("name")) : text(item);
+            if (value != null) {
+                items.add(value);
+            }
+        }
+        return items;
+    }
+}
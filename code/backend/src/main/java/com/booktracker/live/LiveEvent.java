@@ -0,0 +1,8 @@
+package com.booktracker.live;
+
+/**
+ * Событие для SSE-подписчиков. События с одинаковым coalesceKey, ещё не отправленные клиенту,
+ * заменяются последним (например, рейтинг книги); null - событие не объединяется.
+ */
+public record LiveEvent(String type, String coalesceKey, Object data) {
+}
@@ -0,0 +1,130 @@
+package com.booktracker.live;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Подписчик с ограниченным буфером неотправленных событий. При переполнении отбрасывается самое старое
+ * событие, а клиент получает "resync" с числом потерянных: ему стоит перезагрузить данные обычным запросом.
+ */
+final class LiveSubscriber {
+
+    private final SseEmitter emitter;
+    private final int bufferSize;
+    // Ключ - coalesceKey или уникальный номер события; порядок вставки - порядок отправки
+    private final LinkedHashMap<Object, LiveEvent> pending = new LinkedHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private long sequence;
+    private long dropped;
+    private volatile boolean closed;
+    // Начало текущей записи в сокет (System.nanoTime) и поток, который пишет; 0 - запись не идёт
+    private volatile long writeStartedAt;
+    private Thread writer;
+    private final Object writerLock = new Object();
+
+    LiveSubscriber(SseEmitter emitter, int bufferSize) {
+        this.emitter = emitter;
+        this.bufferSize = bufferSize;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * Запись висит дольше timeoutNanos: клиент не читает, и поток диспетчера занят им.
+     */
+    boolean isStalled(long now, long timeoutNanos) {
+        long started = writeStartedAt;
+        return started != 0 && now - started > timeoutNanos;
+    }
+
+    /**
+     * Закрывает подписчика и прерывает зависшую запись, чтобы освободить поток диспетчера.
+     */
+    void evict() {
+        closed = true;
+        // Под блокировкой: поток не успеет перейти к чужой задаче между проверкой и прерыванием
+        synchronized (writerLock) {
+            if (writer != null) {
+                writer.interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return true, если подписчика нужно поставить в очередь на отправку
+     */
+    boolean offer(LiveEvent event) {
+        if (closed) {
+            return false;
+        }
+        synchronized (pending) {
+            Object key = event.coalesceKey() != null ? event.coalesceKey() : ++sequence;
+            if (pending.put(key, event) == null && pending.size() > bufferSize) {
+                Iterator<Map.Entry<Object, LiveEvent>> oldest = pending.entrySet().iterator();
+                oldest.next();
+                oldest.remove();
+                dropped++;
+            }
+        }
+        return scheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Отправляет одно событие. Вызывается одним потоком диспетчера за раз (флаг scheduled).
+     * Одно событие за вызов, а не всё подряд: после каждой записи подписчик уходит в конец очереди
+     * диспетчера, и медленный клиент не держит поток дольше одной записи.
+     *
+     * @return true, если остались неотправленные события и подписчика нужно снова поставить в очередь
+     */
+    boolean drain() throws IOException {
+        SseEmitter.SseEventBuilder next = null;
+        synchronized (pending) {
+            if (dropped > 0) {
+                next = SseEmitter.event().name("resync").data(Map.of("dropped", dropped), MediaType.APPLICATION_JSON);
+                dropped = 0;
+            } else if (!pending.isEmpty()) {
+                Iterator<LiveEvent> oldest = pending.values().iterator();
+                LiveEvent event = oldest.next();
+                oldest.remove();
+                next = SseEmitter.event().name(event.type()).data(event.data(), MediaType.APPLICATION_JSON);
+            }
+        }
+        if (next != null && !closed) {
+            synchronized (writerLock) {
+                writer = Thread.currentThread();
+            }
+            writeStartedAt = System.nanoTime();
+            try {
+                emitter.send(next);
+            } finally {
+                writeStartedAt = 0;
+                synchronized (writerLock) {
+                    writer = null;
+                }
+            }
+        }
+        synchronized (pending) {
+            if ((pending.isEmpty() && dropped == 0) || closed) {
+                scheduled.set(false);
+                return false;
+            }
+            return true;
+        }
+    }
+}
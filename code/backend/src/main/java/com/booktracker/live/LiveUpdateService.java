@@ -0,0 +1,187 @@
+package com.booktracker.live;
+
+import com.booktracker.entity.Book;
+import com.booktracker.event.BookRatingChangedEvent;
+import com.booktracker.event.BookSavedEvent;
+import com.booktracker.event.CatalogImportedEvent;
+import com.booktracker.event.ReviewApprovedEvent;
+import com.booktracker.event.ReviewsModeratedEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рассылка живых обновлений по SSE: одобренные отзывы, изменения рейтингов, новые книги.
+ * <ul>
+ *     <li>Соединение - асинхронный запрос сервлета: пока событий нет, поток на подписчика не занят.</li>
+ *     <li>Публикация только кладёт событие в буфер каждого подписчика; отправкой занимается небольшой пул.</li>
+ *     <li>Буфер подписчика ограничен: рейтинги одной книги объединяются, при переполнении старые события
+ *     отбрасываются, и медленный клиент не копит память.</li>
+ *     <li>Запись в сокет блокирующая: за один заход подписчику отправляется одно событие, после чего он встаёт
+ *     в конец очереди, поэтому медленные клиенты делят потоки диспетчера с остальными по очереди.</li>
+ *     <li>Запись дольше live.write-timeout-ms считается зависшей: подписчик отключается, а поток диспетчера
+ *     прерывается, чтобы несколько не читающих клиентов не заняли весь пул.</li>
+ * </ul>
+ */
+@Service
+public class LiveUpdateService {
+
+    private final Set<LiveSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long writeTimeoutNanos;
+    private final long emitterTimeoutMs;
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "live-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LiveUpdateService(@Value("${live.max-subscribers:10000}") int maxSubscribers,
+                             @Value("${live.buffer-size:64}") int bufferSize,
+                             @Value("${live.dispatcher-threads:4}") int dispatcherThreads,
+                             @Value("${live.heartbeat-seconds:25}") long heartbeatSeconds,
+                             @Value("${live.write-timeout-ms:5000}") long writeTimeoutMs,
+                             @Value("${live.emitter-timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads, runnable -> {
+            Thread thread = new Thread(runnable, "live-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Пустые события держат соединение живым через прокси и выявляют отключившихся клиентов
+        heartbeat.scheduleWithFixedDelay(() -> publish(new LiveEvent("ping", "ping", Map.of())),
+                heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long checkMs = Math.max(100, Math.min(1000, writeTimeoutMs / 2));
+        heartbeat.scheduleWithFixedDelay(this::evictStalled, checkMs, checkMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @throws IllegalStateException если достигнут лимит подписчиков
+     */
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many live subscribers");
+        }
+        // Свой таймаут, а не общий MVC; по истечении EventSource в браузере переподключается сам
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, bufferSize);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public void publish(LiveEvent event) {
+        for (LiveSubscriber subscriber : subscribers) {
+            if (subscriber.offer(event)) {
+                dispatcher.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewApproved(ReviewApprovedEvent event) {
+        publish(new LiveEvent("review", null, event.review()));
+    }
+
+    // Массовая модерация: одно событие на пакет вместо события на каждый отзыв
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewsModerated(ReviewsModeratedEvent event) {
+        publish(new LiveEvent("reviews-moderated", null, Map.of(
+                "status", event.status().name(),
+                "reviews", event.reviewIds().size(),
+                "bookIds", event.bookIds())));
+    }
+
+    @EventListener
+    public void onBookRatingChanged(BookRatingChangedEvent event) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("bookId", event.bookId());
+        data.put("averageRating", event.averageRating());
+        data.put("ratingsCount", event.ratingsCount());
+        publish(new LiveEvent("rating", "rating:" + event.bookId(), data));
+    }
+
+    @EventListener
+    public void onBookSaved(BookSavedEvent event) {
+        Book book = event.book();
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", book.getId());
+        data.put("title", book.getTitle());
+        data.put("year", book.getYear());
+        publish(new LiveEvent("book", null, data));
+    }
+
+    @EventListener
+    public void onCatalogImported(CatalogImportedEvent event) {
+        if (!event.bookIds().isEmpty()) {
+            publish(new LiveEvent("catalog-imported", null, Map.of("books", event.bookIds().size())));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        for (LiveSubscriber subscriber : subscribers) {
+            subscriber.close();
+            subscriber.emitter().complete();
+        }
+        subscribers.clear();
+    }
+
+    private void drain(LiveSubscriber subscriber) {
+        try {
+            if (subscriber.drain()) {
+                dispatcher.execute(() -> drain(subscriber));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Клиент отключился (Tomcat сообщает об этом только при записи) или запись прервана по таймауту
+            remove(subscriber);
+            subscriber.emitter().completeWithError(e);
+        } finally {
+            // Прерывание по таймауту не должно достаться следующей задаче пула
+            Thread.interrupted();
+        }
+    }
+
+    private void evictStalled() {
+        long now = System.nanoTime();
+        for (LiveSubscriber subscriber : subscribers) {
+            if (subscriber.isStalled(now, writeTimeoutNanos)) {
+                // Ответ завершит поток диспетчера, когда прерванная запись завершится ошибкой:
+                // emitter заблокирован на время send, и завершать его отсюда значит зависнуть самим
+                subscribers.remove(subscriber);
+                subscriber.evict();
+            }
+        }
+    }
+
+    private void remove(LiveSubscriber subscriber) {
+        subscriber.close();
+        subscribers.remove(subscriber);
+    }
+}
@@ -0,0 +1,25 @@
+package com.booktracker.mapper;
+
+import com.booktracker.dto.AuthorDTO;
+import com.booktracker.entity.Author;
+
+/**
+ * Ручное отображение автора в DTO: прямые вызовы геттеров без рефлексии и без промежуточных карт типов.
+ */
+public final class AuthorMapper {
+
+    private AuthorMapper() {
+    }
+
+    public static AuthorDTO toDTO(Author author) {
+        AuthorDTO dto = new AuthorDTO();
+        dto.setId(author.getId());
+        dto.setName(author.getName());
+        dto.setBiography(author.getBiography());
+        dto.setPhotoUrl(author.getPhotoUrl());
+        dto.setBirthYear(author.getBirthYear());
+        dto.setDeathYear(author.getDeathYear());
+        dto.setNationality(author.getNationality());
+        return dto;
+    }
+}
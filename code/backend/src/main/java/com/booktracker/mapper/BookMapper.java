@@ -0,0 +1,66 @@
+package com.booktracker.mapper;
+
+import com.booktracker.dto.AuthorDTO;
+import com.booktracker.dto.BookDTO;
+import com.booktracker.dto.GenreDTO;
+import com.booktracker.entity.Author;
+import com.booktracker.entity.Book;
+import com.booktracker.entity.Genre;
+import com.booktracker.image.ImageStore;
+import com.booktracker.image.ImageVariant;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Ручное отображение книги в DTO. Авторы и жанры передаются готовыми, чтобы страницы книг
+ * могли загружать их пакетно (см. BookService.toDTOs).
+ */
+public final class BookMapper {
+
+    private BookMapper() {
+    }
+
+    // Связи берутся из самой сущности - только для одиночных книг
+    public static BookDTO toDTO(Book book) {
+        Set<AuthorDTO> authors = new HashSet<>();
+        if (book.getAuthors() != null) {
+            for (Author author : book.getAuthors()) {
+                authors.add(AuthorMapper.toDTO(author));
+            }
+        }
+        Set<GenreDTO> genres = new HashSet<>();
+        if (book.getGenres() != null) {
+            for (Genre genre : book.getGenres()) {
+                genres.add(toGenreDTO(genre));
+            }
+        }
+        return toDTO(book, authors, genres);
+    }
+
+    public static BookDTO toDTO(Book book, Set<AuthorDTO> authors, Set<GenreDTO> genres) {
+        BookDTO dto = new BookDTO();
+        dto.setId(book.getId());
+        dto.setTitle(book.getTitle());
+        dto.setIsbn(book.getIsbn());
+        dto.setYear(book.getYear());
+        dto.setDescription(book.getDescription());
+        dto.setCoverUrl(book.getCoverUrl());
+        dto.setCoverThumbnailUrl(ImageStore.url(book.getCoverImageId(), ImageVariant.THUMB_LARGE));
+        dto.setCoverPlaceholder(book.getCoverPlaceholder());
+        dto.setPages(book.getPages());
+        dto.setChapters(book.getChapters());
+        dto.setAverageRating(book.getAverageRating());
+        dto.setRatingsCount(book.getRatingsCount());
+        dto.setAuthors(authors);
+        dto.setGenres(genres);
+        return dto;
+    }
+
+    public static GenreDTO toGenreDTO(Genre genre) {
+        GenreDTO dto = new GenreDTO();
+        dto.setId(genre.getId());
+        dto.setName(genre.getName());
+        return dto;
+    }
+}
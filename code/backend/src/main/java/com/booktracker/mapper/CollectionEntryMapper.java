@@ -0,0 +1,24 @@
+package com.booktracker.mapper;
+
+import com.booktracker.dto.CollectionEntryDTO;
+import com.booktracker.entity.CollectionEntry;
+
+/**
+ * Ручное отображение записи коллекции в DTO.
+ */
+public final class CollectionEntryMapper {
+
+    private CollectionEntryMapper() {
+    }
+
+    public static CollectionEntryDTO toDTO(CollectionEntry entry) {
+        CollectionEntryDTO dto = new CollectionEntryDTO();
+        dto.setId(entry.getId());
+        dto.setBookId(entry.getBook().getId());
+        dto.setBookTitle(entry.getBook().getTitle());
+        dto.setStatus(entry.getStatus() == null ? null : entry.getStatus().name());
+        dto.setNotes(entry.getNotes());
+        dto.setRating(entry.getRating());
+        return dto;
+    }
+}
@@ -0,0 +1,33 @@
+package com.booktracker.mapper;
+
+import com.booktracker.dto.ReviewDTO;
+import com.booktracker.entity.Review;
+
+/**
+ * Ручное отображение отзывов. Пользователь и книга читаются через ленивые прокси:
+ * getId() у прокси Hibernate не требует загрузки, имя пользователя - требует.
+ */
+public final class ReviewMapper {
+
+    private ReviewMapper() {
+    }
+
+    public static ReviewDTO toDTO(Review review) {
+        ReviewDTO dto = new ReviewDTO();
+        dto.setId(review.getId());
+        dto.setText(review.getText());
+        dto.setRating(review.getRating());
+        dto.setCreatedAt(review.getCreatedAt());
+        dto.setUserName(review.getUser().getUsername());
+        dto.setBookId(review.getBook().getId());
+        return dto;
+    }
+
+    // Из запроса берутся только поля, которые задаёт автор отзыва: id, дату, пользователя и книгу назначает сервер
+    public static Review toEntity(ReviewDTO dto) {
+        Review review = new Review();
+        review.setText(dto.getText());
+        review.setRating(dto.getRating());
+        return review;
+    }
+}
@@ -0,0 +1,46 @@
+package com.booktracker.rating;
+
+import com.booktracker.entity.CollectionEntry;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Передаёт изменения оценок в коллекциях в RatingAggregator, где бы ни сохранялась запись.
+ * Агрегатор берётся лениво: слушатель создаётся вместе с EntityManagerFactory, от которой зависят репозитории агрегатора.
+ */
+@Component
+public class CollectionRatingListener {
+
+    private final ObjectProvider<RatingAggregator> ratingAggregator;
+
+    public CollectionRatingListener(ObjectProvider<RatingAggregator> ratingAggregator) {
+        this.ratingAggregator = ratingAggregator;
+    }
+
+    @PostLoad
+    public void onLoad(CollectionEntry entry) {
+        entry.setPersistedRating(entry.getRating());
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(CollectionEntry entry) {
+        record(entry, entry.getPersistedRating(), entry.getRating());
+        entry.setPersistedRating(entry.getRating());
+    }
+
+    @PostRemove
+    public void onRemove(CollectionEntry entry) {
+        record(entry, entry.getPersistedRating(), null);
+    }
+
+    private void record(CollectionEntry entry, Integer oldRating, Integer newRating) {
+        if (entry.getBook() != null) {
+            ratingAggregator.getObject().recordRatingChange(entry.getBook().getId(), oldRating, newRating);
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.booktracker.rating;
+
+import com.booktracker.entity.Book;
+import com.booktracker.event.BookRatingChangedEvent;
+import com.booktracker.event.BookRatingsChangedEvent;
+import com.booktracker.repository.BookRepository;
+import com.booktracker.repository.CollectionEntryRepository;
+import com.booktracker.repository.ReviewRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Рейтинги книг (гистограмма 1-5, среднее, количество) без агрегирующих запросов по отзывам.
+ * <ul>
+ *     <li>Изменения оценок копятся в памяти в LongAdder по каждой звезде: запись не блокирует и не ходит в БД.</li>
+ *     <li>Раз в flushIntervalMs накопленные разницы пакетно записываются в books. Запись идёт через сущности
+ *     с @Version: при конфликте пакет откатывается и повторяется при следующем сбросе.</li>
+ *     <li>Несброшенные разницы теряются при падении процесса, поэтому при старте рейтинги пересчитываются
+ *     из отзывов и коллекций параллельно по диапазонам id книг.</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class RatingAggregator {
+
+    private static final int STARS = 5;
+    private static final int FLUSH_CHUNK_SIZE = 500;
+    private static final int RECONCILE_ATTEMPTS = 3;
+
+    private final BookRepository bookRepository;
+    private final ReviewRepository reviewRepository;
+    private final CollectionEntryRepository collectionEntryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final long flushIntervalMs;
+    private final int reconcileThreads;
+    private final int reconcileChunkSize;
+
+    private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    // Сброс исключает пересчёт целиком: от снимка счётчиков до записи пересчитанных значений.
+    // Куски пересчёта берут блокировку чтения и идут параллельно - их диапазоны id не пересекаются
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+    // Коммит транзакции с оценками и перенос её разницы в счётчики идут под блокировкой чтения, снимок
+    // счётчиков и подсчёт по БД при пересчёте - под блокировкой записи: транзакция либо уже в БД и в счётчиках,
+    // либо ни там, ни там. Иначе оценка, закоммиченная до подсчёта, но перенесённая после снимка, учлась бы дважды
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    // Ключ списка отложенных изменений текущей транзакции
+    private final Object transactionKey = new Object();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rating-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RatingAggregator(BookRepository bookRepository,
+                            ReviewRepository reviewRepository,
+                            CollectionEntryRepository collectionEntryRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${ratings.flush-interval-ms:1000}") long flushIntervalMs,
+                            @Value("${ratings.reconcile.threads:4}") int reconcileThreads,
+                            @Value("${ratings.reconcile.chunk-size:1000}") int reconcileChunkSize) {
+        this.bookRepository = bookRepository;
+        this.reviewRepository = reviewRepository;
+        this.collectionEntryRepository = collectionEntryRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushIntervalMs = flushIntervalMs;
+        this.reconcileThreads = reconcileThreads;
+        this.reconcileChunkSize = reconcileChunkSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        flushQuietly();
+    }
+
+    /**
+     * Учитывает смену оценки книги: oldRating - оценка, которая больше не действует, newRating - новая (null - нет).
+     * Внутри транзакции изменение применяется только после коммита.
+     */
+    public void recordRatingChange(Long bookId, Integer oldRating, Integer newRating) {
+        if (bookId == null || Objects.equals(oldRating, newRating)) {
+            return;
+        }
+        afterCommit(() -> apply(bookId, oldRating, newRating));
+    }
+
+    /**
+     * Пакетный вариант для массовой модерации: delta - изменение числа оценок по звёздам (элемент 0 - одна звезда).
+     */
+    public void recordHistogramChange(Long bookId, long[] delta) {
+        if (bookId == null) {
+            return;
+        }
+        long[] copy = delta.clone();
+        afterCommit(() -> {
+            Counters bookCounters = counters.computeIfAbsent(bookId, id -> new Counters());
+            for (int star = 0; star < STARS; star++) {
+                bookCounters.stars[star].add(copy[star]);
+            }
+            dirty.add(bookId);
+        });
+    }
+
+    /**
+     * Записывает накопленные изменения в books. Вызывается по расписанию и при остановке.
+     */
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            Map<Long, long[]> deltas = new HashMap<>();
+            for (Iterator<Long> iterator = dirty.iterator(); iterator.hasNext(); ) {
+                Long bookId = iterator.next();
+                // Метка снимается до чтения счётчиков: запись после этого момента снова пометит книгу
+                iterator.remove();
+                long[] delta = counters.get(bookId).unflushed();
+                if (delta != null) {
+                    deltas.put(bookId, delta);
+                }
+            }
+            List<Long> ids = new ArrayList<>(deltas.keySet());
+            for (int from = 0; from < ids.size(); from += FLUSH_CHUNK_SIZE) {
+                flushChunk(ids.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, ids.size())), deltas);
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleReconciliation() {
+        Thread thread = new Thread(this::reconcile, "rating-reconciler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Пересчитывает гистограммы всех книг из одобренных отзывов и оценок в коллекциях.
+     */
+    public void reconcile() {
+        long started = System.currentTimeMillis();
+        List<Object[]> range = bookRepository.findIdRange();
+        if (range.isEmpty() || range.get(0)[0] == null) {
+            return;
+        }
+        long minId = (Long) range.get(0)[0];
+        long maxId = (Long) range.get(0)[1];
+        ExecutorService pool = Executors.newFixedThreadPool(reconcileThreads, runnable -> {
+            Thread thread = new Thread(runnable, "rating-reconciler-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += reconcileChunkSize) {
+                long fromId = from;
+                long toId = Math.min(maxId, from + reconcileChunkSize - 1);
+                chunks.add(pool.submit(() -> reconcileChunk(fromId, toId)));
+            }
+            int corrected = 0;
+            for (Future<Integer> chunk : chunks) {
+                try {
+                    corrected += chunk.get();
+                } catch (ExecutionException e) {
+                    log.warn("Rating reconciliation chunk failed: {}", e.getCause().getMessage());
+                }
+            }
+            log.info("Ratings reconciled in {} ms, {} books corrected",
+                    System.currentTimeMillis() - started, corrected);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Все изменения транзакции применяются одной синхронизацией, которая держит commitLock от коммита до переноса
+    @SuppressWarnings("unchecked")
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        List<Runnable> actions = (List<Runnable>) TransactionSynchronizationManager.getResource(transactionKey);
+        if (actions == null) {
+            actions = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(transactionKey, actions);
+            TransactionSynchronizationManager.registerSynchronization(new CommitSynchronization(actions));
+        }
+        actions.add(action);
+    }
+
+    private void apply(Long bookId, Integer oldRating, Integer newRating) {
+        Counters bookCounters = counters.computeIfAbsent(bookId, id -> new Counters());
+        if (isValid(oldRating)) {
+            bookCounters.stars[oldRating - 1].decrement();
+        }
+        if (isValid(newRating)) {
+            bookCounters.stars[newRating - 1].increment();
+        }
+        dirty.add(bookId);
+    }
+
+    private void flushChunk(List<Long> ids, Map<Long, long[]> deltas) {
+        List<Book> updated;
+        try {
+            updated = transactionTemplate.execute(status -> {
+                List<Book> books = bookRepository.findAllById(ids);
+                for (Book book : books) {
+                    long[] histogram = book.ratingHistogram();
+                    long[] delta = deltas.get(book.getId());
+                    for (int star = 0; star < STARS; star++) {
+                        histogram[star] = Math.max(0, histogram[star] + delta[star]);
+                    }
+                    book.applyRatingHistogram(histogram);
+                }
+                return books;
+            });
+        } catch (RuntimeException e) {
+            dirty.addAll(ids);
+            log.warn("Rating flush for {} books failed, will retry: {}", ids.size(), e.getMessage());
+            return;
+        }
+        // Разницы удалённых книг тоже считаются сброшенными
+        for (Long id : ids) {
+            counters.get(id).markFlushed(deltas.get(id));
+        }
+        publishChanges(updated);
+    }
+
+    private int reconcileChunk(long fromId, long toId) {
+        // Сброс не может вклиниться между снимком, подсчётом и записью: иначе его разница была бы
+        // учтена дважды или перезаписана
+        flushLock.readLock().lock();
+        try {
+            List<Book> updated = null;
+            // Конфликт версий с другой правкой книги - пересчитываем и повторяем с новыми версиями
+            for (int attempt = 1; updated == null; attempt++) {
+                Map<Long, long[]> actual = countRatings(fromId, toId);
+                try {
+                    updated = transactionTemplate.execute(status -> recount(fromId, toId, actual));
+                } catch (OptimisticLockingFailureException e) {
+                    if (attempt == RECONCILE_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+            publishChanges(updated);
+            return updated.size();
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    // По событию на книгу и одно на всю пачку
+    private void publishChanges(List<Book> updated) {
+        if (updated.isEmpty()) {
+            return;
+        }
+        List<BookRatingChangedEvent> changes = new ArrayList<>(updated.size());
+        for (Book book : updated) {
+            BookRatingChangedEvent change = new BookRatingChangedEvent(book.getId(), book.getAverageRating(),
+                    book.getRatingsCount());
+            eventPublisher.publishEvent(change);
+            changes.add(change);
+        }
+        eventPublisher.publishEvent(new BookRatingsChangedEvent(changes));
+    }
+
+    // Транзакции, закоммиченные до снимка, уже перенесены в счётчики и попадут в подсчёт, поэтому их разница
+    // считается сброшенной. Закоммиченные после подсчёта останутся в счётчиках и применятся поверх
+    private Map<Long, long[]> countRatings(long fromId, long toId) {
+        commitLock.writeLock().lock();
+        try {
+            counters.forEach((bookId, bookCounters) -> {
+                if (bookId >= fromId && bookId <= toId) {
+                    bookCounters.markAllFlushed();
+                }
+            });
+            Map<Long, long[]> actual = new HashMap<>();
+            addCounts(actual, reviewRepository.countApprovedRatingsByBookIdRange(fromId, toId));
+            addCounts(actual, collectionEntryRepository.countRatingsByBookIdRange(fromId, toId));
+            return actual;
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    private List<Book> recount(long fromId, long toId, Map<Long, long[]> actual) {
+        List<Long> changed = new ArrayList<>();
+        for (Object[] row : bookRepository.findRatingColumnsByIdRange(fromId, toId)) {
+            Long bookId = (Long) row[0];
+            long[] expected = actual.getOrDefault(bookId, new long[STARS]);
+            long[] stored = new long[STARS];
+            for (int star = 0; star < STARS; star++) {
+                stored[star] = row[star + 1] == null ? 0 : ((Number) row[star + 1]).longValue();
+            }
+            long total = Arrays.stream(expected).sum();
+            Integer storedCount = (Integer) row[STARS + 1];
+            if (!Arrays.equals(expected, stored) || (storedCount == null ? 0 : storedCount) != total
+                    || (total == 0) != (row[STARS + 2] == null)) {
+                changed.add(bookId);
+            }
+        }
+        if (changed.isEmpty()) {
+            return List.of();
+        }
+        List<Book> books = bookRepository.findAllById(changed);
+        for (Book book : books) {
+            book.applyRatingHistogram(actual.getOrDefault(book.getId(), new long[STARS]));
+        }
+        return books;
+    }
+
+    private static void addCounts(Map<Long, long[]> histograms, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            Integer rating = (Integer) row[1];
+            if (isValid(rating)) {
+                histograms.computeIfAbsent((Long) row[0], id -> new long[STARS])[rating - 1] += (Long) row[2];
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Rating flush failed: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isValid(Integer rating) {
+        return rating != null && rating >= 1 && rating <= STARS;
+    }
+
+    private final class CommitSynchronization implements TransactionSynchronization {
+        private final List<Runnable> actions;
+        private boolean locked;
+
+        CommitSynchronization(List<Runnable> actions) {
+            this.actions = actions;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            commitLock.readLock().lock();
+            locked = true;
+        }
+
+        // Блокировка снимается сразу после переноса, не дожидаясь остальных синхронизаций транзакции
+        @Override
+        public void afterCommit() {
+            try {
+                actions.forEach(Runnable::run);
+            } finally {
+                unlock();
+            }
+        }
+
+        // Откат или ошибка до afterCommit
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(transactionKey);
+            unlock();
+        }
+
+        private void unlock() {
+            if (locked) {
+                locked = false;
+                commitLock.readLock().unlock();
+            }
+        }
+    }
+
+    // Счётчики книги не обнуляются (сброс LongAdder не атомарен), вместо этого запоминается уже записанная сумма
+    private static final class Counters {
+        final LongAdder[] stars = new LongAdder[STARS];
+        // Доступ только под flushLock: сброс - под блокировкой записи, пересчёт - под блокировкой чтения своего диапазона
+        final long[] flushed = new long[STARS];
+
+        Counters() {
+            for (int star = 0; star < STARS; star++) {
+                stars[star] = new LongAdder();
+            }
+        }
+
+        long[] unflushed() {
+            long[] delta = new long[STARS];
+            boolean changed = false;
+            for (int star = 0; star < STARS; star++) {
+                delta[star] = stars[star].sum() - flushed[star];
+                changed |= delta[star] != 0;
+            }
+            return changed ? delta : null;
+        }
+
+        void markFlushed(long[] delta) {
+            for (int star = 0; star < STARS; star++) {
+                flushed[star] += delta[star];
+            }
+        }
+
+        void markAllFlushed() {
+            for (int star = 0; star < STARS; star++) {
+                flushed[star] = stars[star].sum();
+            }
+        }
+    }
+}
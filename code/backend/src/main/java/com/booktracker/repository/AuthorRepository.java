@@ -1,20 +1,59 @@
 // AuthorRepository.java
 package com.booktracker.repository;
 
+import com.booktracker.dto.AuthorCardDTO;
 import com.booktracker.entity.Author;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface AuthorRepository extends JpaRepository<Author, Long> {
+public interface AuthorRepository extends JpaRepository<Author, Long>, JpaSpecificationExecutor<Author> {
     Page<Author> findByNameContainingIgnoreCase(String name, Pageable pageable);
 
     @Query("SELECT a FROM Author a JOIN a.books b WHERE b.id = :bookId")
     List<Author> findByBookId(@Param("bookId") Long bookId);
-}
\ No newline at end of file
+
+    // Версия автора для ETag без загрузки сущности
+    @Query("SELECT a.version, a.updatedAt FROM Author a WHERE a.id = :id")
+    List<Object[]> findVersionById(@Param("id") Long id);
+
+    // Текстовые поля для полнотекстового индекса
+    @Query("SELECT a.id, a.name, a.biography FROM Author a")
+    List<Object[]> findSearchableColumns();
+
+    // Имена и число книг для подсказок
+    @Query("SELECT a.id, a.name, COUNT(b) FROM Author a LEFT JOIN a.books b GROUP BY a.id, a.name")
+    List<Object[]> findSuggestionColumns();
+
+    @Query(value = "SELECT new com.booktracker.dto.AuthorCardDTO(a.id, a.name, a.photoUrl) " +
+            "FROM Author a WHERE a.id IN (SELECT la.id FROM UserList l JOIN l.authors la WHERE l.id = :listId)",
+            countQuery = "SELECT COUNT(la) FROM UserList l JOIN l.authors la WHERE l.id = :listId")
+    Page<AuthorCardDTO> findCardsByListId(@Param("listId") Long listId, Pageable pageable);
+
+    // Поток авторов для выгрузки (см. BookRepository.streamAfter)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Author a WHERE a.id > :afterId ORDER BY a.id")
+    Stream<Author> streamAfter(@Param("afterId") long afterId);
+
+    // Словарь имён для импорта
+    @Query("SELECT a.id, a.name FROM Author a")
+    List<Object[]> findIdsAndNames();
+
+    @Query("SELECT a.id, a.name, a.biography FROM Author a WHERE a.id IN :ids")
+    List<Object[]> findSearchableColumnsByIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,23 @@
+package com.booktracker.repository;
+
+import com.booktracker.dto.BookCardDTO;
+import com.booktracker.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Запросы по Specification, которым нужны возможности сверх JpaSpecificationExecutor:
+ * constructor-проекции и учёт NULLS FIRST/LAST из {@link Sort.Order#getNullHandling()}.
+ */
+public interface BookQueryRepository {
+
+    Page<Book> findPage(Specification<Book> spec, Pageable pageable);
+
+    List<Book> findFirst(Specification<Book> spec, Sort sort, int limit);
+
+    Page<BookCardDTO> findCards(Specification<Book> spec, Pageable pageable);
+}
@@ -1,16 +1,28 @@
 package com.booktracker.repository;
 
+import com.booktracker.dto.BookCardDTO;
 import com.booktracker.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>,
+        BookQueryRepository {
 
     // Поиск по названию
     Page<Book> findByTitleContainingIgnoreCase(String title, Pageable pageable);
@@ -33,4 +45,110 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b FROM Book b")
     Page<Book> findAllBooks(Pageable pageable);
 
-}
\ No newline at end of file
+    // Версии книги и её авторов/жанров для ETag без загрузки сущностей
+    @Query("SELECT b.version, b.updatedAt, " +
+            "(SELECT COALESCE(SUM(a.version), 0) FROM Book ba JOIN ba.authors a WHERE ba.id = b.id), " +
+            "(SELECT MAX(a.updatedAt) FROM Book ba JOIN ba.authors a WHERE ba.id = b.id), " +
+            "(SELECT COALESCE(SUM(g.version), 0) FROM Book bg JOIN bg.genres g WHERE bg.id = b.id) " +
+            "FROM Book b WHERE b.id = :id")
+    List<Object[]> findVersionById(@Param("id") Long id);
+
+    // Скалярные колонки каталога без гидрации сущностей (для индекса в памяти).
+    // Порядок строк - порядок названий по правилам сравнения БД, его индекс берёт как есть
+    @Query("SELECT b.id, b.title, b.year, b.pages, b.chapters, b.averageRating, b.ratingsCount FROM Book b " +
+            "ORDER BY b.title, b.id")
+    List<Object[]> findCatalogColumns();
+
+    // Позиция книги в порядке (title, id) по правилам сравнения БД
+    @Query("SELECT COUNT(b) FROM Book b WHERE b.title < :title OR (b.title = :title AND b.id < :id)")
+    long countBeforeInTitleOrder(@Param("title") String title, @Param("id") Long id);
+
+    @Query("SELECT b.id, g.name FROM Book b JOIN b.genres g")
+    List<Object[]> findGenreNamesByBook();
+
+    // Текстовые поля для полнотекстового индекса
+    @Query("SELECT b.id, b.title, b.isbn, b.description FROM Book b")
+    List<Object[]> findSearchableColumns();
+
+    @Query("SELECT b.id, a.name FROM Book b JOIN b.authors a")
+    List<Object[]> findAuthorNamesByBook();
+
+    // Названия и популярность для подсказок
+    @Query("SELECT b.id, b.title, b.ratingsCount FROM Book b")
+    List<Object[]> findSuggestionColumns();
+
+    // Пакетная загрузка связей для страницы книг (вместо ленивой загрузки на каждую строку)
+    @Query("SELECT b.id, a FROM Book b JOIN b.authors a WHERE b.id IN :bookIds")
+    List<Object[]> findAuthorsByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("SELECT b.id, g FROM Book b JOIN b.genres g WHERE b.id IN :bookIds")
+    List<Object[]> findGenresByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    // Проекции карточек: только нужные колонки, без гидрации сущностей и описания (заглушка обложки - пара сотен байт)
+    @Query("SELECT new com.booktracker.dto.BookCardDTO(b.id, b.title, b.year, b.coverUrl, " +
+            "b.coverImageId, b.coverPlaceholder, b.averageRating) " +
+            "FROM Book b WHERE b.id IN :bookIds")
+    List<BookCardDTO> findCardsByIds(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query(value = "SELECT new com.booktracker.dto.BookCardDTO(b.id, b.title, b.year, b.coverUrl, " +
+            "b.coverImageId, b.coverPlaceholder, b.averageRating) " +
+            "FROM Book b WHERE b.id IN (SELECT lb.id FROM UserList l JOIN l.books lb WHERE l.id = :listId)",
+            countQuery = "SELECT COUNT(lb) FROM UserList l JOIN l.books lb WHERE l.id = :listId")
+    Page<BookCardDTO> findCardsByListId(@Param("listId") Long listId, Pageable pageable);
+
+    @Query("SELECT b.id, a.name FROM Book b JOIN b.authors a WHERE b.id IN :bookIds")
+    List<Object[]> findAuthorNamesByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    // Поток для выгрузки: однонаправленный курсор JDBC, сущности только для чтения (без снимков для dirty checking)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    Stream<Book> streamAfter(@Param("afterId") long afterId);
+
+    // Уже сохранённые ISBN из порции импорта: одна выборка на порцию вместо findByIsbn на каждую запись
+    @Query("SELECT b.isbnNormalized FROM Book b WHERE b.isbnNormalized IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    // Заполнение isbn_normalized у книг, сохранённых до появления колонки
+    @Query("SELECT b.id, b.isbn FROM Book b WHERE b.isbn IS NOT NULL AND b.isbnNormalized IS NULL AND b.id > :afterId ORDER BY b.id")
+    List<Object[]> findUnnormalizedIsbns(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("SELECT b.isbnNormalized FROM Book b WHERE b.isbnNormalized IS NOT NULL")
+    List<String> findAllNormalizedIsbns();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Book b SET b.isbnNormalized = :isbn WHERE b.id = :id")
+    int updateNormalizedIsbn(@Param("id") Long id, @Param("isbn") String isbn);
+
+    @Query("SELECT b.id, b.title, b.isbn, b.description FROM Book b WHERE b.id IN :ids")
+    List<Object[]> findSearchableColumnsByIds(@Param("ids") Collection<Long> ids);
+
+    // Книги с внешней обложкой, ещё не загруженной в локальное хранилище
+    @Query("SELECT b.id, b.coverUrl FROM Book b " +
+            "WHERE b.id > :afterId AND b.coverUrl IS NOT NULL AND b.coverImageId IS NULL ORDER BY b.id")
+    List<Object[]> findPendingCovers(@Param("afterId") long afterId, Pageable pageable);
+
+    // Обновление без загрузки сущности; версия увеличивается, чтобы сменился ETag. Если за время загрузки
+    // адрес обложки поменялся, строка не обновляется
+    @Modifying
+    @Transactional
+    @Query("UPDATE Book b SET b.coverImageId = :imageId, b.coverPlaceholder = :placeholder, " +
+            "b.version = b.version + 1, b.updatedAt = :now WHERE b.id = :id AND b.coverUrl = :coverUrl")
+    int updateCoverImage(@Param("id") Long id, @Param("coverUrl") String coverUrl, @Param("imageId") String imageId,
+                         @Param("placeholder") String placeholder, @Param("now") LocalDateTime now);
+
+    @Query("SELECT MIN(b.id), MAX(b.id) FROM Book b")
+    List<Object[]> findIdRange();
+
+    // Сохранённые рейтинги для сверки: id, пять счётчиков гистограммы, ratingsCount, averageRating
+    @Query("SELECT b.id, b.rating1Count, b.rating2Count, b.rating3Count, b.rating4Count, b.rating5Count, " +
+            "b.ratingsCount, b.averageRating FROM Book b WHERE b.id BETWEEN :fromId AND :toId")
+    List<Object[]> findRatingColumnsByIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("SELECT b.id, b.rating1Count, b.rating2Count, b.rating3Count, b.rating4Count, b.rating5Count, " +
+            "b.ratingsCount, b.averageRating FROM Book b WHERE b.id IN :ids")
+    List<Object[]> findRatingColumnsByIds(@Param("ids") Collection<Long> ids);
+}
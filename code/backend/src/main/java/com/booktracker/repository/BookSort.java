@@ -0,0 +1,98 @@
+package com.booktracker.repository;
+
+import com.booktracker.entity.Book;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Порядки сортировки каталога. Каждый ключ опирается на индекс таблицы books,
+ * id добавляется последним, чтобы порядок был стабильным между страницами.
+ * NULLS LAST сохраняется только в запросах, построенных через {@link #toOrders}: стандартные
+ * findAll(spec, pageable) идут через QueryUtils и молча его теряют.
+ */
+public enum BookSort {
+    TITLE_ASC("title_asc", Sort.Order.asc("title")),
+    TITLE_DESC("title_desc", Sort.Order.desc("title")),
+    YEAR_ASC("year_asc", Sort.Order.asc("year").nullsLast()),
+    YEAR_DESC("year_desc", Sort.Order.desc("year").nullsLast()),
+    RATING_DESC("rating_desc", Sort.Order.desc("averageRating").nullsLast());
+
+    private final String code;
+    private final Sort.Order order;
+
+    BookSort(String code, Sort.Order order) {
+        this.code = code;
+        this.order = order;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getAttribute() {
+        return order.getProperty();
+    }
+
+    public boolean isAscending() {
+        return order.isAscending();
+    }
+
+    // Значение ключа сортировки строки - для курсора keyset-пагинации
+    public Object keyOf(Book book) {
+        return switch (this) {
+            case TITLE_ASC, TITLE_DESC -> book.getTitle();
+            case YEAR_ASC, YEAR_DESC -> book.getYear();
+            case RATING_DESC -> book.getAverageRating();
+        };
+    }
+
+    public Sort toSort() {
+        Sort.Direction direction = order.getDirection();
+        return Sort.by(order, new Sort.Order(direction, "id"));
+    }
+
+    // QueryUtils.toOrders игнорирует nullsFirst/nullsLast, поэтому порядок для Criteria строится здесь
+    public static List<Order> toOrders(Sort sort, Root<?> root, CriteriaBuilder cb) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Expression<?> path = root.get(order.getProperty());
+            if (order.getNullHandling() != Sort.NullHandling.NATIVE && cb instanceof HibernateCriteriaBuilder hcb) {
+                boolean nullsFirst = order.getNullHandling() == Sort.NullHandling.NULLS_FIRST;
+                orders.add(order.isAscending() ? hcb.asc(path, nullsFirst) : hcb.desc(path, nullsFirst));
+            } else {
+                orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+            }
+        }
+        return orders;
+    }
+
+    // "title" - сортировка по умолчанию для /api/books, совпадает с TITLE_ASC
+    public static boolean isKnown(String code) {
+        if ("title".equalsIgnoreCase(code)) {
+            return true;
+        }
+        for (BookSort value : values()) {
+            if (value.code.equalsIgnoreCase(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Неизвестные значения (в том числе старое "title") сортируются по названию
+    public static BookSort fromCode(String code) {
+        for (BookSort value : values()) {
+            if (value.code.equalsIgnoreCase(code)) {
+                return value;
+            }
+        }
+        return TITLE_ASC;
+    }
+}
@@ -0,0 +1,110 @@
+package com.booktracker.repository;
+
+import com.booktracker.dto.BookFilter;
+import com.booktracker.entity.Book;
+import com.booktracker.entity.Genre;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> matches(BookFilter filter) {
+        return Specification.where(hasAnyGenre(filter.getGenres()))
+                .and(chaptersInRanges(filter.getChapterRanges()))
+                .and(between("pages", filter.getMinPages(), filter.getMaxPages()))
+                .and(between("year", filter.getYearFrom(), filter.getYearTo()))
+                .and(ratingAtLeast(filter.getMinRating()));
+    }
+
+    // EXISTS вместо JOIN: книга с несколькими подходящими жанрами не дублируется на странице
+    public static Specification<Book> hasAnyGenre(List<String> genres) {
+        if (genres == null || genres.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<Book> book = subquery.from(Book.class);
+            Join<Book, Genre> genre = book.join("genres");
+            subquery.select(book.get("id"))
+                    .where(cb.equal(book.get("id"), root.get("id")),
+                            genre.get("name").in(genres));
+            return cb.exists(subquery);
+        };
+    }
+
+    public static Specification<Book> chaptersInRanges(List<String> ranges) {
+        if (ranges == null || ranges.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            for (String range : ranges) {
+                int[] bounds = parseRange(range);
+                if (bounds == null) {
+                    continue;
+                }
+                // Корзины полуоткрытые: граница 10 попадает только в "10-50", а не ещё и в "0-10"
+                if (bounds[1] == Integer.MAX_VALUE) {
+                    predicates.add(cb.greaterThanOrEqualTo(root.get("chapters"), bounds[0]));
+                } else {
+                    predicates.add(cb.and(cb.greaterThanOrEqualTo(root.get("chapters"), bounds[0]),
+                            cb.lessThan(root.get("chapters"), bounds[1])));
+                }
+            }
+            return predicates.isEmpty() ? null : cb.or(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    public static Specification<Book> between(String attribute, Integer from, Integer to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (from != null && to != null) {
+                return cb.between(root.get(attribute), from, to);
+            }
+            return from != null
+                    ? cb.greaterThanOrEqualTo(root.get(attribute), from)
+                    : cb.lessThanOrEqualTo(root.get(attribute), to);
+        };
+    }
+
+    public static Specification<Book> ratingAtLeast(Double minRating) {
+        if (minRating == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("averageRating"), minRating);
+    }
+
+    // Полуоткрытый диапазон [от, до): "10-50" -> [10, 50), "100+" -> [100, MAX], "7" -> [7, 8);
+    // некорректные значения игнорируются
+    public static int[] parseRange(String range) {
+        if (range == null || range.isBlank()) {
+            return null;
+        }
+        String value = range.trim();
+        try {
+            if (value.endsWith("+")) {
+                return new int[]{Integer.parseInt(value.substring(0, value.length() - 1)), Integer.MAX_VALUE};
+            }
+            int dash = value.indexOf('-');
+            if (dash > 0) {
+                return new int[]{Integer.parseInt(value.substring(0, dash)),
+                        Integer.parseInt(value.substring(dash + 1))};
+            }
+            int exact = Integer.parseInt(value);
+            return new int[]{exact, exact + 1};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -22,4 +22,8 @@ public interface CollectionEntryRepository extends JpaRepository<CollectionEntry
     Optional<CollectionEntry> findByUserIdAndBookId(@Param("userId") Long userId, @Param("bookId") Long bookId);
 
     boolean existsByUserIdAndBookId(Long userId, Long bookId);
-}
\ No newline at end of file
+
+    @Query("SELECT ce.book.id, ce.rating, COUNT(ce) FROM CollectionEntry ce " +
+            "WHERE ce.rating IS NOT NULL AND ce.book.id BETWEEN :fromId AND :toId GROUP BY ce.book.id, ce.rating")
+    List<Object[]> countRatingsByBookIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+}
@@ -0,0 +1,9 @@
+package com.booktracker.repository;
+
+import com.booktracker.entity.IsbnMetadataCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IsbnMetadataCacheRepository extends JpaRepository<IsbnMetadataCacheEntry, String> {
+}
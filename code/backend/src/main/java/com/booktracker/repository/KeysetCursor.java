@@ -0,0 +1,76 @@
+package com.booktracker.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Непрозрачный токен продолжения для keyset-пагинации: порядок сортировки,
+ * значение ключа последней строки и её id. Кодируется в base64url, формат версионирован.
+ */
+public record KeysetCursor(String sort, Object key, long id) {
+
+    private static final String VERSION = "1";
+    private static final char SEPARATOR = '\u001f';
+
+    public String encode() {
+        String raw = VERSION + SEPARATOR + sort + SEPARATOR + encodeKey(key) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает токен и проверяет, что он выдан для того же порядка сортировки.
+     *
+     * @throws IllegalArgumentException если токен повреждён или относится к другой сортировке
+     */
+    public static KeysetCursor decode(String token, String expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(String.valueOf(SEPARATOR), -1);
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Unsupported cursor format");
+            }
+            if (!parts[1].equals(expectedSort)) {
+                throw new IllegalArgumentException("Cursor was issued for sort '" + parts[1] + "'");
+            }
+            return new KeysetCursor(parts[1], decodeKey(parts[2]), Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + e.getMessage(), e);
+        }
+    }
+
+    // Первый символ - тип значения: n(ull), s(tring), i(nteger), d(ouble), t(imestamp)
+    private static String encodeKey(Object key) {
+        if (key == null) {
+            return "n";
+        }
+        if (key instanceof String value) {
+            return "s" + value;
+        }
+        if (key instanceof Integer value) {
+            return "i" + value;
+        }
+        if (key instanceof Double value) {
+            return "d" + value;
+        }
+        if (key instanceof LocalDateTime value) {
+            return "t" + value;
+        }
+        throw new IllegalArgumentException("Unsupported cursor key type: " + key.getClass());
+    }
+
+    private static Object decodeKey(String value) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing cursor key");
+        }
+        String body = value.substring(1);
+        return switch (value.charAt(0)) {
+            case 'n' -> null;
+            case 's' -> body;
+            case 'i' -> Integer.valueOf(body);
+            case 'd' -> Double.valueOf(body);
+            case 't' -> LocalDateTime.parse(body);
+            default -> throw new IllegalArgumentException("Unknown cursor key type");
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package com.booktracker.repository;
+
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Условие "строго после курсора" для сортировки (key, id), где NULL-ключи идут в конце
+ * в обоих направлениях (как в {@link BookSort}).
+ */
+public final class KeysetSpecifications {
+
+    private KeysetSpecifications() {
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Specification<T> after(String attribute, boolean ascending, KeysetCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Path key = root.get(attribute);
+            Path<Long> id = root.get("id");
+            Comparable value = (Comparable) cursor.key();
+            if (value == null) {
+                // Курсор уже в хвосте NULL-значений: дальше только по id
+                return cb.and(cb.isNull(key),
+                        ascending ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id()));
+            }
+            return cb.or(
+                    ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value),
+                    cb.and(cb.equal(key, value),
+                            ascending ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id())),
+                    cb.isNull(key));
+        };
+    }
+}
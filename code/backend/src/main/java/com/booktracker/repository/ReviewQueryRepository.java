@@ -0,0 +1,14 @@
+package com.booktracker.repository;
+
+import com.booktracker.entity.Review;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Keyset-выборка отзывов по Specification в виде проекции без текста.
+ */
+public interface ReviewQueryRepository {
+
+    List<ReviewRatingRow> findRatingRows(Specification<Review> spec, long afterId, int limit);
+}
@@ -0,0 +1,32 @@
+package com.booktracker.repository;
+
+import com.booktracker.entity.Review;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public class ReviewQueryRepositoryImpl implements ReviewQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ReviewRatingRow> findRatingRows(Specification<Review> spec, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ReviewRatingRow> query = cb.createQuery(ReviewRatingRow.class);
+        Root<Review> root = query.from(Review.class);
+        query.select(cb.construct(ReviewRatingRow.class, root.get("id"), root.get("book").get("id"),
+                root.get("rating"), root.get("status")));
+        Predicate after = cb.greaterThan(root.get("id"), afterId);
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        query.where(predicate == null ? after : cb.and(after, predicate));
+        query.orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
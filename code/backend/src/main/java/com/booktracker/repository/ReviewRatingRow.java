@@ -0,0 +1,7 @@
+package com.booktracker.repository;
+
+import com.booktracker.entity.ReviewStatus;
+
+// Отзыв без текста: только то, что нужно для пересчёта рейтинга книги
+public record ReviewRatingRow(Long id, Long bookId, Integer rating, ReviewStatus status) {
+}
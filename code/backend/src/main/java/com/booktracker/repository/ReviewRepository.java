@@ -2,18 +2,23 @@
 package com.booktracker.repository;
 
 import com.booktracker.entity.Review;
+import com.booktracker.entity.ReviewStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ReviewRepository extends JpaRepository<Review, Long> {
-    Page<Review> findByBookId(Long bookId, Pageable pageable);
+public interface ReviewRepository extends JpaRepository<Review, Long>, ReviewQueryRepository {
+    Page<Review> findByBookIdAndStatus(Long bookId, ReviewStatus status, Pageable pageable);
     Page<Review> findByUserId(Long userId, Pageable pageable);
 
     @Query("SELECT r FROM Review r WHERE r.status = 'APPROVED' ORDER BY r.createdAt DESC")
@@ -21,4 +26,66 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.book.id = :bookId AND r.status = 'APPROVED'")
     Double findAverageRatingByBookId(@Param("bookId") Long bookId);
-}
\ No newline at end of file
+
+    // Keyset-пагинация по (created_at, id) по убыванию, без OFFSET и COUNT
+    @Query("SELECT r FROM Review r WHERE r.book.id = :bookId AND r.status = :status ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findBookReviewsFirst(@Param("bookId") Long bookId, @Param("status") ReviewStatus status, Limit limit);
+
+    @Query("SELECT r FROM Review r WHERE r.book.id = :bookId AND r.status = :status " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findBookReviewsAfter(@Param("bookId") Long bookId,
+                                      @Param("status") ReviewStatus status,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Limit limit);
+
+    @Query("SELECT r FROM Review r WHERE r.status = 'APPROVED' ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findLatestApprovedFirst(Limit limit);
+
+    @Query("SELECT r FROM Review r WHERE r.status = 'APPROVED' " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findLatestApprovedAfter(@Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         Limit limit);
+
+    // Число одобренных оценок каждой величины по книгам диапазона: book id, rating, count
+    @Query("SELECT r.book.id, r.rating, COUNT(r) FROM Review r " +
+            "WHERE r.status = 'APPROVED' AND r.book.id BETWEEN :fromId AND :toId GROUP BY r.book.id, r.rating")
+    List<Object[]> countApprovedRatingsByBookIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("SELECT COUNT(r) FROM Review r WHERE r.book.id = :bookId AND r.status = 'APPROVED'")
+    long countApprovedByBookId(@Param("bookId") Long bookId);
+
+    // book id, число одобренных отзывов; книги без отзывов в результат не попадают
+    @Query("SELECT r.book.id, COUNT(r) FROM Review r WHERE r.book.id IN :bookIds AND r.status = 'APPROVED' " +
+            "GROUP BY r.book.id")
+    List<Object[]> countApprovedByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    // Автор подгружается сразу: его имя нужно в DTO
+    @Query("SELECT r FROM Review r JOIN FETCH r.user WHERE r.book.id = :bookId AND r.status = 'APPROVED' " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findRecentApprovedByBookId(@Param("bookId") Long bookId, Limit limit);
+
+    // До perBook последних одобренных отзывов каждой книги одним запросом: отзыв берётся, если новее него
+    // меньше perBook отзывов той же книги
+    @Query("SELECT r FROM Review r JOIN FETCH r.user WHERE r.book.id IN :bookIds AND r.status = 'APPROVED' " +
+            "AND (SELECT COUNT(n) FROM Review n WHERE n.book = r.book AND n.status = 'APPROVED' " +
+            "AND (n.createdAt > r.createdAt OR (n.createdAt = r.createdAt AND n.id > r.id))) < :perBook " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findRecentApprovedByBookIds(@Param("bookIds") Collection<Long> bookIds,
+                                             @Param("perBook") long perBook);
+
+    // UPDATE пакета модерации с условием на прочитанный статус: отзыв, изменённый после чтения, пропускается
+    @Modifying
+    @Query("UPDATE Review r SET r.status = :status WHERE r.id IN :ids AND r.status = :expected")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("expected") ReviewStatus expected,
+                     @Param("status") ReviewStatus status);
+
+    long countByStatus(ReviewStatus status);
+
+    // Начало ленты для кэша в памяти: автор подгружается тем же запросом
+    @Query("SELECT r FROM Review r JOIN FETCH r.user WHERE r.status = 'APPROVED' ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findLatestApprovedWithUser(Limit limit);
+}
@@ -0,0 +1,49 @@
+package com.booktracker.repository;
+
+import com.booktracker.entity.Review;
+import com.booktracker.entity.ReviewStatus;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public final class ReviewSpecifications {
+
+    private ReviewSpecifications() {
+    }
+
+    public static Specification<Review> hasStatusOtherThan(ReviewStatus status) {
+        return (root, query, cb) -> cb.notEqual(root.get("status"), status);
+    }
+
+    public static Specification<Review> hasStatus(ReviewStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Review> idIn(Collection<Long> ids) {
+        return ids == null || ids.isEmpty() ? null : (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Review> forBook(Long bookId) {
+        return bookId == null ? null : (root, query, cb) -> cb.equal(root.get("book").get("id"), bookId);
+    }
+
+    public static Specification<Review> byUser(Long userId) {
+        return userId == null ? null : (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Review> createdBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (from == null) {
+                return cb.lessThan(root.get("createdAt"), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get("createdAt"), from);
+            }
+            return cb.and(cb.greaterThanOrEqualTo(root.get("createdAt"), from), cb.lessThan(root.get("createdAt"), to));
+        };
+    }
+}
@@ -1,9 +1,16 @@
 package com.booktracker.repository;
 
 import com.booktracker.entity.User;
+import com.booktracker.entity.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +22,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<Object> findByUsername(String username);
 
     boolean existsByUsername(String newUsername);
-}
\ No newline at end of file
+
+    @Query("SELECT u.id, u.username FROM User u WHERE u.avatarUrl LIKE :prefix")
+    List<Object[]> findIdsAndUsernamesByAvatarUrlPrefix(@Param("prefix") String prefix);
+
+    @Modifying
+    @Query("UPDATE User u SET u.avatarUrl = :avatarUrl WHERE u.id = :id")
+    int updateAvatarUrl(@Param("id") Long id, @Param("avatarUrl") String avatarUrl);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.role = :role WHERE u.email IN :emails AND u.role <> :role")
+    int updateRoleByEmails(@Param("emails") Collection<String> emails, @Param("role") UserRole role);
+
+    // Перехэширование пароля: строка не обновляется, если пароль сменили после проверки
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+}
@@ -0,0 +1,100 @@
+package com.booktracker.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BK-дерево по расстоянию Левенштейна: ключ - слово, значение - id документов, где оно встречается.
+ * Поиск ограничен бюджетом посещённых узлов, чтобы короткие запросы с большим допуском
+ * не разворачивали всё дерево.
+ */
+public class BkTree {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    private int size;
+
+    public void add(String word, long id) {
+        lock.writeLock().lock();
+        try {
+            if (root == null) {
+                root = new Node(word);
+                root.ids.add(id);
+                size++;
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int distance = Levenshtein.distance(word, node.word, Integer.MAX_VALUE);
+                if (distance == 0) {
+                    node.ids.add(id);
+                    return;
+                }
+                Node child = node.children.get(distance);
+                if (child == null) {
+                    child = new Node(word);
+                    child.ids.add(id);
+                    node.children.put(distance, child);
+                    size++;
+                    return;
+                }
+                node = child;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает слова на расстоянии не больше {@code maxDistance} вместе с id документов.
+     * Обход прекращается после {@code maxVisits} узлов.
+     */
+    public List<Match> search(String word, int maxDistance, int maxVisits) {
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return matches;
+            }
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            int visits = 0;
+            while (!stack.isEmpty() && visits < maxVisits) {
+                Node node = stack.pop();
+                visits++;
+                int distance = Levenshtein.distance(word, node.word, Integer.MAX_VALUE);
+                if (distance <= maxDistance) {
+                    matches.add(new Match(node.word, distance, Set.copyOf(node.ids)));
+                }
+                // Неравенство треугольника: нужные дети лежат в [d - k, d + k]
+                for (int d = Math.max(1, distance - maxDistance); d <= distance + maxDistance; d++) {
+                    Node child = node.children.get(d);
+                    if (child != null) {
+                        stack.push(child);
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public record Match(String word, int distance, Set<Long> ids) {
+    }
+
+    private static final class Node {
+        final String word;
+        final Set<Long> ids = new HashSet<>(2);
+        final Map<Integer, Node> children = new HashMap<>(4);
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+}
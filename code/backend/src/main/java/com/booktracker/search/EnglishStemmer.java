@@ -0,0 +1,81 @@
+package com.booktracker.search;
+
+/**
+ * Лёгкий английский стеммер (шаги 1a-1c и частые суффиксы алгоритма Портера).
+ * Достаточен для сопоставления "novels" / "novel", "running" / "run" в заголовках и описаниях.
+ */
+final class EnglishStemmer {
+
+    private static final String[][] SUFFIXES = {
+            {"ational", "ate"}, {"tional", "tion"}, {"iveness", "ive"}, {"fulness", "ful"},
+            {"ousness", "ous"}, {"ization", "ize"}, {"ation", "ate"}, {"ness", ""}, {"ment", ""},
+            {"fully", "ful"}, {"ously", "ous"}, {"ably", "able"}, {"ly", ""}
+    };
+
+    private EnglishStemmer() {
+    }
+
+    static String stem(String word) {
+        String result = step1a(word);
+        result = step1b(result);
+        if (result.endsWith("y") && result.length() > 2 && hasVowel(result.substring(0, result.length() - 1))) {
+            result = result.substring(0, result.length() - 1) + "i";
+        }
+        for (String[] suffix : SUFFIXES) {
+            if (result.endsWith(suffix[0]) && result.length() - suffix[0].length() >= 3) {
+                return result.substring(0, result.length() - suffix[0].length()) + suffix[1];
+            }
+        }
+        return result;
+    }
+
+    private static String step1a(String word) {
+        if (word.endsWith("sses")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("ies")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private static String step1b(String word) {
+        if (word.endsWith("eed")) {
+            return word.length() > 4 ? word.substring(0, word.length() - 1) : word;
+        }
+        String stem = null;
+        if (word.endsWith("ed")) {
+            stem = word.substring(0, word.length() - 2);
+        } else if (word.endsWith("ing")) {
+            stem = word.substring(0, word.length() - 3);
+        }
+        if (stem == null || stem.length() < 2 || !hasVowel(stem)) {
+            return word;
+        }
+        if (stem.endsWith("at") || stem.endsWith("bl") || stem.endsWith("iz")) {
+            return stem + "e";
+        }
+        int n = stem.length();
+        char last = stem.charAt(n - 1);
+        if (n > 2 && last == stem.charAt(n - 2) && "lsz".indexOf(last) < 0 && !isVowel(last)) {
+            return stem.substring(0, n - 1);
+        }
+        return stem;
+    }
+
+    private static boolean hasVowel(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (isVowel(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVowel(char c) {
+        return "aeiouy".indexOf(c) >= 0;
+    }
+}
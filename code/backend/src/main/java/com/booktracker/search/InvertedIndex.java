@@ -0,0 +1,234 @@
+package com.booktracker.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс с ранжированием BM25 по нескольким полям.
+ * У внешнего id постоянный внутренний номер: при переиндексации документ занимает тот же номер,
+ * его старые постинги убираются точечно по сохранённым термам, а номера удалённых документов
+ * переиспользуются. Поэтому массивы не растут от обновлений, а df считает только живые документы.
+ */
+public class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final String[] fields;
+    private final List<Map<String, Postings>> postings = new ArrayList<>();
+    private final long[] totalLengths;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int[][] lengths;
+    private long[] externalIds = new long[1024];
+    // Различные термы документа по полям: по ним убираются его постинги
+    private String[][][] docTerms = new String[1024][][];
+    private final Map<Long, Integer> docByExternalId = new HashMap<>();
+    private final Deque<Integer> freeDocs = new ArrayDeque<>();
+    private int nextDoc;
+
+    public InvertedIndex(String... fields) {
+        this.fields = fields.clone();
+        this.totalLengths = new long[fields.length];
+        this.lengths = new int[fields.length][1024];
+        for (int i = 0; i < fields.length; i++) {
+            postings.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Добавляет или заменяет документ. Значения полей передаются в порядке, заданном в конструкторе.
+     */
+    public void index(long id, String... values) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = docByExternalId.get(id);
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                clear(doc);
+            } else {
+                doc = freeDocs.isEmpty() ? nextDoc++ : freeDocs.pop();
+                ensureCapacity(doc);
+                externalIds[doc] = id;
+                docByExternalId.put(id, doc);
+            }
+            String[][] terms = new String[fields.length][];
+            for (int field = 0; field < fields.length; field++) {
+                String value = field < values.length ? values[field] : null;
+                List<String> analyzed = TextAnalyzer.analyze(value);
+                Map<String, Integer> frequencies = new HashMap<>();
+                for (String term : analyzed) {
+                    frequencies.merge(term, 1, Integer::sum);
+                }
+                for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                    postings.get(field).computeIfAbsent(entry.getKey(), key -> new Postings())
+                            .add(doc, entry.getValue());
+                }
+                lengths[field][doc] = analyzed.size();
+                totalLengths[field] += analyzed.size();
+                terms[field] = frequencies.keySet().toArray(new String[0]);
+            }
+            docTerms[doc] = terms;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByExternalId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Top-k поиск: баллы считаются по всем полям с весами {@code boosts} (имя поля -> вес),
+     * лучшие {@code offset + limit} документов отбираются ограниченной кучей.
+     */
+    public SearchHits search(String query, Map<String, Float> boosts, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.analyze(query));
+        if (terms.isEmpty() || limit <= 0 || offset < 0) {
+            return new SearchHits(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            int liveDocs = docByExternalId.size();
+            Map<Integer, Float> scores = new HashMap<>();
+            for (int field = 0; field < fields.length; field++) {
+                float boost = boosts.getOrDefault(fields[field], 0f);
+                if (boost <= 0 || liveDocs == 0) {
+                    continue;
+                }
+                float averageLength = Math.max(1f, (float) totalLengths[field] / liveDocs);
+                for (String term : terms) {
+                    Postings list = postings.get(field).get(term);
+                    if (list == null) {
+                        continue;
+                    }
+                    int df = list.size;
+                    float idf = (float) Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+                    for (int i = 0; i < list.size; i++) {
+                        int doc = list.docs[i];
+                        int tf = list.frequencies[i];
+                        float norm = K1 * (1 - B + B * lengths[field][doc] / averageLength);
+                        float score = boost * idf * (tf * (K1 + 1)) / (tf + norm);
+                        scores.merge(doc, score, Float::sum);
+                    }
+                }
+            }
+            return topK(scores, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private SearchHits topK(Map<Integer, Float> scores, int offset, int limit) {
+        // В long: offset + limit у дальних страниц не должен переполняться
+        int k = (int) Math.min((long) offset + limit, scores.size());
+        if (offset >= k) {
+            return new SearchHits(List.of(), scores.size());
+        }
+        Comparator<Map.Entry<Integer, Float>> byScore = Map.Entry.<Integer, Float>comparingByValue()
+                .thenComparing(entry -> -externalIds[entry.getKey()]);
+        PriorityQueue<Map.Entry<Integer, Float>> heap = new PriorityQueue<>(k, byScore);
+        for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (byScore.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Map.Entry<Integer, Float>> ranked = new ArrayList<>(heap);
+        ranked.sort(byScore.reversed());
+        List<Long> ids = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = offset; i < ranked.size(); i++) {
+            ids.add(externalIds[ranked.get(i).getKey()]);
+        }
+        return new SearchHits(ids, scores.size());
+    }
+
+    private void removeInternal(long id) {
+        Integer doc = docByExternalId.remove(id);
+        if (doc == null) {
+            return;
+        }
+        clear(doc);
+        freeDocs.push(doc);
+    }
+
+    // Убирает документ из постингов его термов и из сумм длин полей
+    private void clear(int doc) {
+        String[][] terms = docTerms[doc];
+        if (terms == null) {
+            return;
+        }
+        for (int field = 0; field < fields.length; field++) {
+            Map<String, Postings> fieldPostings = postings.get(field);
+            for (String term : terms[field]) {
+                Postings list = fieldPostings.get(term);
+                if (list != null && list.remove(doc) && list.size == 0) {
+                    fieldPostings.remove(term);
+                }
+            }
+            totalLengths[field] -= lengths[field][doc];
+            lengths[field][doc] = 0;
+        }
+        docTerms[doc] = null;
+    }
+
+    private void ensureCapacity(int doc) {
+        if (doc < externalIds.length) {
+            return;
+        }
+        int capacity = Math.max(doc + 1, externalIds.length * 2);
+        externalIds = Arrays.copyOf(externalIds, capacity);
+        docTerms = Arrays.copyOf(docTerms, capacity);
+        for (int field = 0; field < fields.length; field++) {
+            lengths[field] = Arrays.copyOf(lengths[field], capacity);
+        }
+    }
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        // Порядок записей не важен: на место удалённой переносится последняя
+        boolean remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    size--;
+                    docs[i] = docs[size];
+                    frequencies[i] = frequencies[size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.booktracker.search;
+
+/**
+ * Облегчённая версия русского стеммера Snowball: отсекает окончания деепричастий,
+ * возвратные частицы, окончания прилагательных/причастий, глаголов и существительных в зоне RV.
+ */
+final class RussianStemmer {
+
+    private static final String VOWELS = "аеиоуыэюя";
+
+    private static final String[] PERFECTIVE_GERUND_1 = {"вшись", "вши", "в"};
+    private static final String[] PERFECTIVE_GERUND_2 = {"ывшись", "ившись", "ывши", "ивши", "ыв", "ив"};
+    private static final String[] REFLEXIVE = {"ся", "сь"};
+    private static final String[] ADJECTIVE = {"ими", "ыми", "его", "ого", "ему", "ому", "ее", "ие", "ые", "ое",
+            "ей", "ий", "ый", "ой", "ем", "им", "ым", "ом", "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"};
+    private static final String[] PARTICIPLE_1 = {"ем", "нн", "вш", "ющ", "щ"};
+    private static final String[] PARTICIPLE_2 = {"ивш", "ывш", "ующ"};
+    private static final String[] VERB_1 = {"ете", "йте", "ешь", "нно", "ла", "на", "ли", "ем", "ло", "но", "ет",
+            "ют", "ны", "ть", "й", "л", "н"};
+    private static final String[] VERB_2 = {"уйте", "ейте", "ила", "ыла", "ена", "ите", "или", "ыли", "ило", "ыло",
+            "ено", "ует", "уют", "ены", "ить", "ыть", "ишь", "ей", "уй", "ил", "ыл", "им", "ым", "ен", "ят", "ит",
+            "ыт", "ую", "ю"};
+    private static final String[] NOUN = {"иями", "ями", "ами", "ией", "иям", "ием", "иях", "ев", "ов", "ие", "ье",
+            "еи", "ии", "ей", "ой", "ий", "ям", "ем", "ам", "ом", "ах", "ях", "ию", "ью", "ия", "ья", "а", "е", "и",
+            "й", "о", "у", "ы", "ь", "ю", "я"};
+    private static final String[] SUPERLATIVE = {"ейше", "ейш"};
+    private static final String[] DERIVATIONAL = {"ость", "ост"};
+
+    private RussianStemmer() {
+    }
+
+    static String stem(String word) {
+        int rv = rvStart(word);
+        if (rv >= word.length()) {
+            return word;
+        }
+        String prefix = word.substring(0, rv);
+        String rvPart = word.substring(rv);
+
+        // Шаг 1
+        String result = removeGerund(rvPart);
+        if (result == null) {
+            String withoutReflexive = removeAny(rvPart, REFLEXIVE);
+            rvPart = withoutReflexive != null ? withoutReflexive : rvPart;
+            result = removeAdjectival(rvPart);
+            if (result == null) {
+                result = removeVerb(rvPart);
+            }
+            if (result == null) {
+                result = removeAny(rvPart, NOUN);
+            }
+            if (result == null) {
+                result = rvPart;
+            }
+        }
+        rvPart = result;
+
+        // Шаг 2
+        if (rvPart.endsWith("и")) {
+            rvPart = rvPart.substring(0, rvPart.length() - 1);
+        }
+
+        // Шаг 3 (упрощённо: без вычисления R2, требуем непустую основу)
+        String derivational = removeAny(rvPart, DERIVATIONAL);
+        if (derivational != null && derivational.length() > 1) {
+            rvPart = derivational;
+        }
+
+        // Шаг 4
+        if (rvPart.endsWith("нн")) {
+            rvPart = rvPart.substring(0, rvPart.length() - 1);
+        } else {
+            String superlative = removeAny(rvPart, SUPERLATIVE);
+            if (superlative != null) {
+                rvPart = superlative.endsWith("нн") ? superlative.substring(0, superlative.length() - 1) : superlative;
+            } else if (rvPart.endsWith("ь")) {
+                rvPart = rvPart.substring(0, rvPart.length() - 1);
+            }
+        }
+        return prefix + rvPart;
+    }
+
+    private static int rvStart(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (VOWELS.indexOf(word.charAt(i)) >= 0) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    private static String removeGerund(String word) {
+        String result = removeAfterAOrYa(word, PERFECTIVE_GERUND_1);
+        return result != null ? result : removeAny(word, PERFECTIVE_GERUND_2);
+    }
+
+    private static String removeAdjectival(String word) {
+        String result = removeAny(word, ADJECTIVE);
+        if (result == null) {
+            return null;
+        }
+        String participle = removeAfterAOrYa(result, PARTICIPLE_1);
+        if (participle == null) {
+            participle = removeAny(result, PARTICIPLE_2);
+        }
+        return participle != null ? participle : result;
+    }
+
+    private static String removeVerb(String word) {
+        String result = removeAfterAOrYa(word, VERB_1);
+        return result != null ? result : removeAny(word, VERB_2);
+    }
+
+    // Окончания группы 1 удаляются, только если им предшествует "а" или "я"
+    private static String removeAfterAOrYa(String word, String[] endings) {
+        for (String ending : endings) {
+            if (word.endsWith(ending) && word.length() > ending.length()) {
+                char before = word.charAt(word.length() - ending.length() - 1);
+                if (before == 'а' || before == 'я') {
+                    return word.substring(0, word.length() - ending.length());
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String removeAny(String word, String[] endings) {
+        String best = null;
+        for (String ending : endings) {
+            if (word.endsWith(ending) && (best == null || ending.length() > best.length())) {
+                best = ending;
+            }
+        }
+        return best == null ? null : word.substring(0, word.length() - best.length());
+    }
+}
@@ -0,0 +1,10 @@
+package com.booktracker.search;
+
+import java.util.List;
+
+/**
+ * Идентификаторы найденных документов запрошенной страницы (по убыванию релевантности)
+ * и общее число совпадений.
+ */
+public record SearchHits(List<Long> ids, long total) {
+}
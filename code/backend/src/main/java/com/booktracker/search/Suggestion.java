@@ -0,0 +1,7 @@
+package com.booktracker.search;
+
+/**
+ * Элемент подсказки: книга или автор с весом популярности.
+ */
+public record Suggestion(String type, Long id, String text, long popularity) {
+}
@@ -0,0 +1,270 @@
+package com.booktracker.search;
+
+import java.util.*;
+
+/**
+ * Неизменяемое сжатое префиксное дерево (radix trie) для подсказок.
+ * Узлы хранятся в параллельных массивах, дети узла лежат подряд и упорядочены по первому символу метки,
+ * метки рёбер ссылаются на символы исходных ключей. В каждом узле заранее посчитан top-N элементов
+ * поддерева по популярности, поэтому поиск стоит O(длина префикса) независимо от числа совпадений.
+ */
+public final class SuggestionTrie {
+
+    private static final int MAX_WORD_KEYS = 5;
+
+    private final List<Suggestion> suggestions;
+    private final String[] keys;
+    private final int[] labelKey;
+    private final int[] labelStart;
+    private final int[] labelEnd;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] topStart;
+    private final int[] topLength;
+    private final int[] tops;
+
+    private SuggestionTrie(Builder builder) {
+        this.suggestions = builder.suggestions;
+        this.keys = builder.sortedKeys;
+        this.labelKey = builder.labelKey.toArray();
+        this.labelStart = builder.labelStart.toArray();
+        this.labelEnd = builder.labelEnd.toArray();
+        this.firstChild = builder.firstChild.toArray();
+        this.childCount = builder.childCount.toArray();
+        this.topStart = builder.topStart.toArray();
+        this.topLength = builder.topLength.toArray();
+        this.tops = builder.tops.toArray();
+    }
+
+    public static SuggestionTrie build(List<Suggestion> suggestions, int topN) {
+        return new Builder(suggestions, topN).build();
+    }
+
+    public static SuggestionTrie empty() {
+        return build(List.of(), 1);
+    }
+
+    public int size() {
+        return suggestions.size();
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int node = 0;
+        int matched = 0;
+        while (matched < normalized.length()) {
+            int child = findChild(node, normalized.charAt(matched));
+            if (child < 0) {
+                return List.of();
+            }
+            String key = keys[labelKey[child]];
+            int position = labelStart[child];
+            while (position < labelEnd[child] && matched < normalized.length()) {
+                if (key.charAt(position) != normalized.charAt(matched)) {
+                    return List.of();
+                }
+                position++;
+                matched++;
+            }
+            node = child;
+        }
+        int count = Math.min(limit, topLength[node]);
+        List<Suggestion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(suggestions.get(tops[topStart[node] + i]));
+        }
+        return result;
+    }
+
+    // Дети лежат подряд и отсортированы по первому символу метки - бинарный поиск
+    private int findChild(int node, char c) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char first = keys[labelKey[mid]].charAt(labelStart[mid]);
+            if (first < c) {
+                low = mid + 1;
+            } else if (first > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Нижний регистр, ё -> е, всё кроме букв и цифр схлопывается в один пробел.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && builder.length() > 0) {
+                    builder.append(' ');
+                }
+                space = false;
+                char lower = Character.toLowerCase(c);
+                builder.append(lower == 'ё' ? 'е' : lower);
+            } else {
+                space = true;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static final class Builder {
+        private final List<Suggestion> suggestions;
+        private final int topN;
+        private String[] sortedKeys;
+        private int[][] entriesByKey;
+
+        private final IntList labelKey = new IntList();
+        private final IntList labelStart = new IntList();
+        private final IntList labelEnd = new IntList();
+        private final IntList firstChild = new IntList();
+        private final IntList childCount = new IntList();
+        private final IntList topStart = new IntList();
+        private final IntList topLength = new IntList();
+        private final IntList tops = new IntList();
+
+        Builder(List<Suggestion> suggestions, int topN) {
+            this.suggestions = List.copyOf(suggestions);
+            this.topN = topN;
+        }
+
+        SuggestionTrie build() {
+            // Ключи: полный текст и суффиксы с начала каждого следующего слова ("мир" для "Война и мир")
+            Map<String, List<Integer>> byKey = new TreeMap<>();
+            for (int index = 0; index < suggestions.size(); index++) {
+                String normalized = normalize(suggestions.get(index).text());
+                int words = 0;
+                for (int start = 0; start < normalized.length() && words < MAX_WORD_KEYS; start++) {
+                    if (start == 0 || normalized.charAt(start - 1) == ' ') {
+                        byKey.computeIfAbsent(normalized.substring(start), key -> new ArrayList<>()).add(index);
+                        words++;
+                    }
+                }
+            }
+            sortedKeys = byKey.keySet().toArray(new String[0]);
+            entriesByKey = new int[sortedKeys.length][];
+            int k = 0;
+            for (List<Integer> entries : byKey.values()) {
+                entriesByKey[k++] = entries.stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            int root = addNode(0, 0, 0);
+            buildNode(root, 0, sortedKeys.length, 0);
+            return new SuggestionTrie(this);
+        }
+
+        private int addNode(int key, int start, int end) {
+            labelKey.add(key);
+            labelStart.add(start);
+            labelEnd.add(end);
+            firstChild.add(0);
+            childCount.add(0);
+            topStart.add(0);
+            topLength.add(0);
+            return labelKey.size() - 1;
+        }
+
+        // Ключи [from, to) отсортированы и имеют общий префикс длины depth
+        private void buildNode(int node, int from, int to, int depth) {
+            List<Integer> own = new ArrayList<>();
+            int cursor = from;
+            while (cursor < to && sortedKeys[cursor].length() == depth) {
+                for (int entry : entriesByKey[cursor]) {
+                    own.add(entry);
+                }
+                cursor++;
+            }
+
+            List<int[]> groups = new ArrayList<>();
+            while (cursor < to) {
+                char c = sortedKeys[cursor].charAt(depth);
+                int end = cursor + 1;
+                while (end < to && sortedKeys[end].charAt(depth) == c) {
+                    end++;
+                }
+                groups.add(new int[]{cursor, end});
+                cursor = end;
+            }
+
+            int first = labelKey.size();
+            for (int[] group : groups) {
+                int lcp = commonPrefix(sortedKeys[group[0]], sortedKeys[group[1] - 1]);
+                addNode(group[0], depth, lcp);
+            }
+            firstChild.set(node, first);
+            childCount.set(node, groups.size());
+
+            List<Integer> candidates = new ArrayList<>(own);
+            for (int i = 0; i < groups.size(); i++) {
+                int child = first + i;
+                buildNode(child, groups.get(i)[0], groups.get(i)[1], labelEnd.get(child));
+                for (int t = 0; t < topLength.get(child); t++) {
+                    candidates.add(tops.get(topStart.get(child) + t));
+                }
+            }
+
+            List<Integer> best = candidates.stream()
+                    .distinct()
+                    .sorted(Comparator.comparingLong((Integer e) -> suggestions.get(e).popularity()).reversed()
+                            .thenComparing(e -> suggestions.get(e).text()))
+                    .limit(topN)
+                    .toList();
+            topStart.set(node, tops.size());
+            topLength.set(node, best.size());
+            for (int entry : best) {
+                tops.add(entry);
+            }
+        }
+
+        private static int commonPrefix(String a, String b) {
+            int length = Math.min(a.length(), b.length());
+            int i = 0;
+            while (i < length && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.booktracker.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбивает текст на термы: буквы и цифры (кириллица и латиница), нижний регистр, ё -> е.
+ * Кириллические токены проходят через русский стеммер, латинские - через английский.
+ */
+public final class TextAnalyzer {
+
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private TextAnalyzer() {
+    }
+
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        StringBuilder token = new StringBuilder();
+        boolean cyrillic = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                char lower = normalize(c);
+                cyrillic |= isCyrillic(lower);
+                token.append(lower);
+            } else if (token.length() > 0) {
+                terms.add(stem(token.toString(), cyrillic));
+                token.setLength(0);
+                cyrillic = false;
+            }
+        }
+        if (token.length() > 0) {
+            terms.add(stem(token.toString(), cyrillic));
+        }
+        return terms;
+    }
+
+    public static String normalizeToken(String token) {
+        StringBuilder builder = new StringBuilder(token.length());
+        for (int i = 0; i < token.length(); i++) {
+            builder.append(normalize(token.charAt(i)));
+        }
+        return builder.toString();
+    }
+
+    static boolean isCyrillic(char c) {
+        return Character.UnicodeBlock.of(c) == Character.UnicodeBlock.CYRILLIC;
+    }
+
+    private static char normalize(char c) {
+        char lower = Character.toLowerCase(c);
+        return lower == 'ё' ? 'е' : lower;
+    }
+
+    private static String stem(String token, boolean cyrillic) {
+        if (token.length() <= MIN_STEM_LENGTH || Character.isDigit(token.charAt(0))) {
+            return token;
+        }
+        String stem = cyrillic ? RussianStemmer.stem(token) : EnglishStemmer.stem(token.toLowerCase(Locale.ROOT));
+        return stem.length() < 2 ? token : stem;
+    }
+}
@@ -0,0 +1,56 @@
+package com.booktracker.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Приводит текст к латинскому ключу: кириллица транслитерируется по упрощённой схеме
+ * (ближе к англоязычному написанию имён: Толстой -> tolstoy, Чехов -> chekhov),
+ * латиница и кириллица после этого сравниваются в одном пространстве.
+ */
+public final class Transliterator {
+
+    private static final String CYRILLIC = "абвгдеёжзийклмнопрстуфхцчшщъыьэюя";
+    private static final String[] LATIN = {"a", "b", "v", "g", "d", "e", "e", "zh", "z", "i", "y", "k", "l", "m",
+            "n", "o", "p", "r", "s", "t", "u", "f", "kh", "ts", "ch", "sh", "shch", "", "y", "", "e", "yu", "ya"};
+
+    private Transliterator() {
+    }
+
+    public static String toLatin(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int index = CYRILLIC.indexOf(c);
+            if (index >= 0) {
+                builder.append(LATIN[index]);
+            } else if (Character.isLetterOrDigit(c)) {
+                builder.append(c);
+            } else {
+                builder.append(' ');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Слова текста в латинской форме, без пустых токенов. Окончания -ий/-ый пишутся как -y
+     * (Достоевский -> dostoevsky), как это принято в англоязычных изданиях.
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : toLatin(text).split(" +")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (word.length() > 3 && (word.endsWith("iy") || word.endsWith("yy"))) {
+                word = word.substring(0, word.length() - 2) + "y";
+            }
+            words.add(word);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,175 @@
+package com.booktracker.security;
+
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Общее для всех узлов кольцо ключей подписи JWT. Каждый ключ имеет идентификатор (kid), который
+ * пишется в заголовок токена: любой узел с тем же набором ключей проверяет токен локально, без
+ * обращения к другим узлам. Первый ключ списка подписывает новые токены, остальные только проверяют.
+ * <p>
+ * Формат - записи {@code kid:base64-секрет} через запятую или с новой строки, строки с # пропускаются.
+ * Источник по приоритету: файл jwt.keys-file (перечитывается раз в jwt.keys-reload-seconds),
+ * свойство jwt.keys, иначе единственный ключ "default" из jwt.secret. Без настроенного ключа приложение
+ * не запускается; для локальной разработки jwt.dev-random-key=true включает случайный ключ на время
+ * работы процесса (токены не переживают перезапуск и не принимаются другими узлами).
+ * <p>
+ * Ротация с перекрытием окон:
+ * <ol>
+ *     <li>новый ключ добавляется вторым на всех узлах - его токены уже принимаются везде;</li>
+ *     <li>новый ключ переносится в начало - им подписываются новые токены, старые остаются валидны;</li>
+ *     <li>через jwt.expiration старый ключ удаляется.</li>
+ * </ol>
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    // Токены без kid (выпущенные до появления кольца) проверяются этим ключом
+    static final String DEFAULT_KID = "default";
+
+    private final String keys;
+    private final String secret;
+    private final boolean devRandomKey;
+    private final Path keysFile;
+    private final long reloadSeconds;
+    private volatile Ring ring;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jwt-key-ring-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JwtKeyRing(@Value("${jwt.keys:}") String keys,
+                      @Value("${jwt.secret:}") String secret,
+                      @Value("${jwt.keys-file:}") String keysFile,
+                      @Value("${jwt.keys-reload-seconds:60}") long reloadSeconds,
+                      @Value("${jwt.dev-random-key:false}") boolean devRandomKey) {
+        this.keys = keys;
+        this.secret = secret;
+        this.devRandomKey = devRandomKey;
+        this.keysFile = StringUtils.hasText(keysFile) ? Path.of(keysFile) : null;
+        this.reloadSeconds = reloadSeconds;
+        this.ring = load();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (keysFile != null) {
+            scheduler.scheduleWithFixedDelay(this::reloadQuietly, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public Ring current() {
+        return ring;
+    }
+
+    private void reloadQuietly() {
+        try {
+            Ring loaded = load();
+            if (!loaded.keys().keySet().equals(ring.keys().keySet()) || !loaded.activeKid().equals(ring.activeKid())) {
+                log.info("JWT key ring reloaded: active key {}, keys {}", loaded.activeKid(), loaded.keys().keySet());
+            }
+            ring = loaded;
+        } catch (RuntimeException e) {
+            // Оставляем прежние ключи: битый файл не должен ломать проверку токенов
+            log.warn("Failed to reload JWT key ring from {}: {}", keysFile, e.getMessage());
+        }
+    }
+
+    private Ring load() {
+        if (keysFile != null) {
+            try {
+                return parse(Files.readString(keysFile));
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read JWT key ring " + keysFile, e);
+            }
+        }
+        if (StringUtils.hasText(keys)) {
+            return parse(keys);
+        }
+        if (StringUtils.hasText(secret)) {
+            SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            return new Ring(DEFAULT_KID, Map.of(DEFAULT_KID, key));
+        }
+        if (devRandomKey) {
+            log.warn("!!! JWT signing key is not configured: using a random per-boot key (jwt.dev-random-key=true). "
+                    + "Tokens are invalidated on restart and rejected by other nodes. Never use this in production !!!");
+            return new Ring(DEFAULT_KID, Map.of(DEFAULT_KID, randomKey()));
+        }
+        throw new IllegalStateException("JWT signing key is not configured: set jwt.keys-file, jwt.keys or jwt.secret "
+                + "(or jwt.dev-random-key=true for local development)");
+    }
+
+    private static SecretKey randomKey() {
+        byte[] secret = new byte[64];
+        new SecureRandom().nextBytes(secret);
+        return Keys.hmacShaKeyFor(secret);
+    }
+
+    static Ring parse(String spec) {
+        Map<String, SecretKey> parsed = new LinkedHashMap<>();
+        for (String line : spec.split("\\R")) {
+            if (line.isBlank() || line.strip().startsWith("#")) {
+                continue;
+            }
+            for (String entry : line.split(",")) {
+                if (entry.isBlank()) {
+                    continue;
+                }
+                int separator = entry.indexOf(':');
+                if (separator <= 0) {
+                    throw new IllegalStateException("JWT key entry must be kid:base64-secret");
+                }
+                String kid = entry.substring(0, separator).strip();
+                byte[] secret = Base64.getDecoder().decode(entry.substring(separator + 1).strip());
+                if (parsed.put(kid, Keys.hmacShaKeyFor(secret)) != null) {
+                    throw new IllegalStateException("Duplicate JWT key id: " + kid);
+                }
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalStateException("JWT key ring is empty");
+        }
+        return new Ring(parsed.keySet().iterator().next(), Collections.unmodifiableMap(parsed));
+    }
+
+    /**
+     * Неизменяемый снимок кольца: ключ для подписи и все ключи для проверки.
+     */
+    public record Ring(String activeKid, Map<String, SecretKey> keys) {
+
+        public SecretKey activeKey() {
+            return keys.get(activeKid);
+        }
+
+        public SecretKey key(String kid) {
+            return keys.get(kid == null ? DEFAULT_KID : kid);
+        }
+    }
+}
@@ -1,52 +1,118 @@
 // JwtTokenProvider.java
 package com.booktracker.security;
 
+import com.booktracker.cache.LocalCache;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
 
+/**
+ * Единственный сервис выпуска и проверки JWT. Ключи берутся из {@link JwtKeyRing}: токен подписывается
+ * активным ключом и несёт его kid, проверка выбирает ключ по kid из заранее собранного кольца.
+ * <p>
+ * Каждый запрос разбирает токен не больше одного раза: парсер создаётся один раз (JwtParser
+ * потокобезопасен), а проверенные токены кэшируются по SHA-256 хэшу, поэтому повторные запросы
+ * той же сессии не проверяют подпись заново. Запись кэша не переживает ни сам токен, ни ключ,
+ * которым он подписан: истёкший токен или токен удалённого из кольца ключа отклоняется.
+ */
 @Component
 public class JwtTokenProvider {
 
-    private final Key jwtSecret = Keys.secretKeyFor(SignatureAlgorithm.HS512);
-    private final long jwtExpirationInMs = 864000000L; // 10 days
+    private final JwtKeyRing keyRing;
+    private final LocalCache<String, VerifiedToken> verifiedTokenCache;
+    private final long jwtExpirationInMs;
+    private final JwtParser parser;
+
+    public JwtTokenProvider(JwtKeyRing keyRing,
+                            LocalCache<String, VerifiedToken> verifiedTokenCache,
+                            @Value("${jwt.expiration:86400000}") long jwtExpirationInMs) { // 24 часа по умолчанию
+        this.keyRing = keyRing;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.jwtExpirationInMs = jwtExpirationInMs;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keyRing.current().key(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Unknown JWT key id: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
 
     public String generateToken(Authentication authentication) {
-        String username = authentication.getName();
+        return generateToken(authentication.getName());
+    }
+
+    // Subject - email пользователя: по нему UserService загружает принципала
+    public String generateToken(String subject) {
+        JwtKeyRing.Ring ring = keyRing.current();
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
         return Jwts.builder()
-                .setSubject(username)
+                .setHeaderParam(JwsHeader.KEY_ID, ring.activeKid())
+                .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(jwtSecret, SignatureAlgorithm.HS512)
+                .signWith(ring.activeKey())
                 .compact();
     }
 
-    public String getUserEmailFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(jwtSecret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * @return владелец токена или пустой Optional, если подпись неверна, токен повреждён или истёк
+     */
+    public Optional<String> getVerifiedSubject(String token) {
+        String key = hash(token);
+        VerifiedToken verified;
+        try {
+            verified = verifiedTokenCache.get(key, ignored -> verify(token));
+        } catch (JwtException | IllegalArgumentException ex) {
+            // Невалидные токены не кэшируются
+            return Optional.empty();
+        }
+        if (verified.isExpired(Instant.now()) || keyRing.current().key(verified.kid()) == null) {
+            verifiedTokenCache.invalidate(key);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(verified.subject());
+    }
 
-        return claims.getSubject();
+    public String getUserEmailFromJWT(String token) {
+        return getVerifiedSubject(token).orElseThrow(() -> new JwtException("Invalid JWT token"));
     }
 
     public boolean validateToken(String authToken) {
+        return getVerifiedSubject(authToken).isPresent();
+    }
+
+    private VerifiedToken verify(String token) {
+        Jws<Claims> jws = parser.parseClaimsJws(token);
+        Claims claims = jws.getBody();
+        Date expiration = claims.getExpiration();
+        return new VerifiedToken(claims.getSubject(), jws.getHeader().getKeyId(),
+                expiration == null ? null : expiration.toInstant());
+    }
+
+    private static String hash(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(jwtSecret).build().parseClaimsJws(authToken);
-            return true;
-        } catch (SecurityException | MalformedJwtException |
-                 ExpiredJwtException | UnsupportedJwtException |
-                 IllegalArgumentException ex) {
-            // Log exception
-            return false;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
-}
\ No newline at end of file
+}
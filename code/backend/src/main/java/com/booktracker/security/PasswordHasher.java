@@ -0,0 +1,153 @@
+package com.booktracker.security;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Хэширование и проверка паролей на отдельном пуле ограниченного размера. BCrypt намеренно дорог:
+ * выполняемый в потоках Tomcat, всплеск входов занимает все ядра и тормозит чтение каталога.
+ * Здесь одновременно хэшируется не больше threads паролей, в очереди ждёт не больше queueCapacity;
+ * при переполнении или ожидании дольше timeoutMs бросается IllegalStateException (контроллер отвечает 503).
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final int queueCapacity;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${auth.hashing.threads:0}") int threads,
+                          @Value("${auth.hashing.queue-capacity:100}") int queueCapacity,
+                          @Value("${auth.hashing.timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+        // По умолчанию половина ядер: вторая половина остаётся остальным запросам
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return await(submit(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(submit(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    // Хэш создан с меньшей стоимостью, чем настроена сейчас
+    public boolean needsRehash(String encodedPassword) {
+        return encodedPassword != null && passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Фоновое перехэширование после успешного входа. Вызывающий не ждёт; при заполненном пуле
+     * пересчёт пропускается и повторится при следующем входе.
+     */
+    public CompletableFuture<String> encodeInBackground(CharSequence rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(new TimedTask<>(() -> passwordEncoder.encode(rawPassword)), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new IllegalStateException("Password hashing is saturated", e));
+        }
+    }
+
+    public PasswordHashingStats stats() {
+        long count = hashed.sum();
+        return new PasswordHashingStats(executor.getMaximumPoolSize(), queueCapacity, executor.getQueue().size(),
+                executor.getActiveCount(), count, rejected.sum(), timedOut.sum(),
+                count == 0 ? 0 : waitNanos.sum() / 1e6 / count,
+                count == 0 ? 0 : hashNanos.sum() / 1e6 / count,
+                maxHashNanos.get() / 1e6);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> Future<T> submit(Supplier<T> task) {
+        try {
+            return executor.submit(new TimedTask<>(task)::get);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new IllegalStateException("Password hashing is saturated", e);
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Ещё не начатая задача из очереди не выполнится
+            future.cancel(false);
+            timedOut.increment();
+            throw new IllegalStateException("Password hashing timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    // Задача с замером ожидания в очереди и времени хэширования
+    private final class TimedTask<T> implements Supplier<T> {
+
+        private final Supplier<T> task;
+        private final long queuedAt = System.nanoTime();
+
+        private TimedTask(Supplier<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public T get() {
+            long started = System.nanoTime();
+            waitNanos.add(started - queuedAt);
+            try {
+                return task.get();
+            } finally {
+                long elapsed = System.nanoTime() - started;
+                hashNanos.add(elapsed);
+                maxHashNanos.accumulate(elapsed);
+                hashed.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.booktracker.security;
+
+/**
+ * Снимок счётчиков пула хэширования паролей. Время ожидания - от постановки в очередь до начала
+ * хэширования, время хэширования - работа самого BCrypt.
+ */
+public record PasswordHashingStats(int threads, int queueCapacity, int queueDepth, int activeThreads,
+                                   long completed, long rejected, long timedOut,
+                                   double averageWaitMillis, double averageHashMillis, double maxHashMillis) {
+}
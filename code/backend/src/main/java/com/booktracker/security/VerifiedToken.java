@@ -0,0 +1,13 @@
+package com.booktracker.security;
+
+import java.time.Instant;
+
+/**
+ * Результат проверки подписи токена: владелец, ключ подписи и момент истечения.
+ */
+public record VerifiedToken(String subject, String kid, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
@@ -1,38 +1,102 @@
 package com.booktracker.service;
 
+import com.booktracker.cache.LocalCache;
 import com.booktracker.dto.AuthorDTO;
+import com.booktracker.dto.CursorPage;
 import com.booktracker.entity.Author;
+import com.booktracker.mapper.AuthorMapper;
 import com.booktracker.repository.AuthorRepository;
+import com.booktracker.repository.KeysetCursor;
+import com.booktracker.repository.KeysetSpecifications;
+import com.booktracker.search.SearchHits;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class AuthorService {
 
+    private static final String NAME_SORT = "name_asc";
+
     private final AuthorRepository authorRepository;
-    private final ModelMapper modelMapper;
+    private final FullTextSearchService fullTextSearchService;
+    private final FuzzySearchService fuzzySearchService;
+    private final LocalCache<Long, AuthorDTO> authorDetailCache;
 
     public Page<AuthorDTO> getAllAuthors(Pageable pageable) {
         return authorRepository.findAll(pageable)
-                .map(this::convertToDTO);
+                .map(AuthorMapper::toDTO);
     }
 
     public AuthorDTO getAuthorById(Long id) {
+        return authorDetailCache.get(id, this::loadAuthor);
+    }
+
+    private AuthorDTO loadAuthor(Long id) {
         Author author = authorRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Author not found with id: " + id));
-        return convertToDTO(author);
+        return AuthorMapper.toDTO(author);
     }
 
     public Page<AuthorDTO> searchAuthors(String query, Pageable pageable) {
         return authorRepository.findByNameContainingIgnoreCase(query, pageable)
-                .map(this::convertToDTO);
+                .map(AuthorMapper::toDTO);
+    }
+
+    // Keyset-пагинация по (name, id) без OFFSET и COUNT(*)
+    public CursorPage<AuthorDTO> scrollAuthors(String cursor, int size) {
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor, NAME_SORT);
+        Specification<Author> spec = Specification.where(KeysetSpecifications.after("name", true, after));
+        List<Author> rows = authorRepository.findBy(spec,
+                query -> query.sortBy(Sort.by("name", "id")).limit(size + 1).all());
+
+        boolean hasNext = rows.size() > size;
+        List<Author> content = hasNext ? rows.subList(0, size) : rows;
+        String next = null;
+        if (hasNext) {
+            Author last = content.get(content.size() - 1);
+            next = new KeysetCursor(NAME_SORT, last.getName(), last.getId()).encode();
+        }
+        return new CursorPage<>(content.stream().map(AuthorMapper::toDTO).toList(), next, hasNext, size);
+    }
+
+    // Ранжированный поиск по имени и биографии; пока индекс строится - поиск по подстроке
+    public Page<AuthorDTO> searchAuthorsByRelevance(String query, Pageable pageable) {
+        if (!fullTextSearchService.isReady()) {
+            return searchAuthors(query, pageable);
+        }
+        SearchHits hits = fullTextSearchService.searchAuthors(query, pageable);
+        return new PageImpl<>(loadInOrder(hits.ids()), pageable, hits.total());
+    }
+
+    // Нечёткий поиск по имени с транслитерацией ("Толстой" / "Tolstoy", опечатки)
+    public Page<AuthorDTO> searchAuthorsFuzzy(String query, Pageable pageable) {
+        if (!fuzzySearchService.isReady()) {
+            return searchAuthors(query, pageable);
+        }
+        SearchHits hits = fuzzySearchService.searchAuthors(query, pageable);
+        return new PageImpl<>(loadInOrder(hits.ids()), pageable, hits.total());
     }
 
-    private AuthorDTO convertToDTO(Author author) {
-        return modelMapper.map(author, AuthorDTO.class);
+    // Загружает авторов по id одним запросом и сохраняет порядок списка
+    private List<AuthorDTO> loadInOrder(List<Long> ids) {
+        Map<Long, Author> authors = authorRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Author::getId, Function.identity()));
+        return ids.stream()
+                .map(authors::get)
+                .filter(Objects::nonNull)
+                .map(AuthorMapper::toDTO)
+                .toList();
     }
 }
\ No newline at end of file
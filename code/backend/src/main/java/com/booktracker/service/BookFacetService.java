@@ -0,0 +1,220 @@
+package com.booktracker.service;
+
+import com.booktracker.dto.BookFacetsDTO;
+import com.booktracker.dto.BookFilter;
+import com.booktracker.entity.Book;
+import com.booktracker.entity.Genre;
+import com.booktracker.event.BookRatingChangedEvent;
+import com.booktracker.event.BookSavedEvent;
+import com.booktracker.event.CatalogImportedEvent;
+import com.booktracker.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики фасетов каталога: число книг по жанрам, гистограмма по годам и корзины рейтинга.
+ * Заполняются один раз при старте и дальше поддерживаются инкрементально по событиям,
+ * поэтому запрос фасетов не обращается к таблицам books / book_genres.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookFacetService {
+
+    private static final String[] RATING_BUCKETS = {"0-1", "1-2", "2-3", "3-4", "4-5"};
+    private static final String UNRATED = "unrated";
+
+    private final BookRepository bookRepository;
+
+    // Пересев строит новое состояние и подменяет ссылку целиком: читатели видят либо старые, либо новые
+    // счётчики, но не наполовину очищенные. Инкрементальные правки меняют текущее состояние под монитором
+    private volatile Facets facets = new Facets();
+
+    @EventListener({ApplicationReadyEvent.class, CatalogImportedEvent.class})
+    public synchronized void seed() {
+        Map<Long, Set<String>> genresByBook = new HashMap<>();
+        for (Object[] row : bookRepository.findGenreNamesByBook()) {
+            genresByBook.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+        Facets seeded = new Facets();
+        for (Object[] row : bookRepository.findCatalogColumns()) {
+            Long id = (Long) row[0];
+            seeded.put(id, new FacetRow((Integer) row[2], (Integer) row[3], (Integer) row[4], (Double) row[5],
+                    genresByBook.getOrDefault(id, Set.of())));
+        }
+        facets = seeded;
+        log.info("Book facets seeded for {} books", seeded.rows.size());
+    }
+
+    public BookFacetsDTO getFacets(BookFilter filter) {
+        Facets current = facets;
+        if (isEmpty(filter)) {
+            BookFacetsDTO result = new BookFacetsDTO();
+            result.setTotal(current.rows.size());
+            current.genreCounts.forEach((genre, count) -> putIfPositive(result.getGenres(), genre, count.sum()));
+            current.yearCounts.forEach((year, count) -> putIfPositive(result.getYears(), year, count.sum()));
+            for (String bucket : RATING_BUCKETS) {
+                putIfPositive(result.getRatings(), bucket, sum(current.ratingCounts.get(bucket)));
+            }
+            putIfPositive(result.getRatings(), UNRATED, sum(current.ratingCounts.get(UNRATED)));
+            return result;
+        }
+        return scan(current, filter);
+    }
+
+    @EventListener
+    public synchronized void onBookSaved(BookSavedEvent event) {
+        Book book = event.book();
+        Set<String> genres = new HashSet<>();
+        if (book.getGenres() != null) {
+            for (Genre genre : book.getGenres()) {
+                genres.add(genre.getName());
+            }
+        }
+        Facets current = facets;
+        current.remove(book.getId());
+        current.put(book.getId(), new FacetRow(book.getYear(), book.getPages(), book.getChapters(),
+                book.getAverageRating(), genres));
+    }
+
+    @EventListener
+    public synchronized void onRatingChanged(BookRatingChangedEvent event) {
+        Facets current = facets;
+        FacetRow previous = current.rows.get(event.bookId());
+        if (previous == null) {
+            return;
+        }
+        String oldBucket = previous.ratingBucket();
+        FacetRow updated = previous.withRating(event.averageRating());
+        current.rows.put(event.bookId(), updated);
+        if (!oldBucket.equals(updated.ratingBucket())) {
+            current.ratingCounts.get(oldBucket).decrement();
+            current.ratingCounts.computeIfAbsent(updated.ratingBucket(), key -> new LongAdder()).increment();
+        }
+    }
+
+    // Фильтрованный запрос считается по строкам в памяти, без SQL
+    private BookFacetsDTO scan(Facets current, BookFilter filter) {
+        CatalogFilterMatcher matcher = new CatalogFilterMatcher(filter);
+        List<String> wantedGenres = filter.getGenres();
+        Map<String, Long> genres = new HashMap<>();
+        Map<Integer, Long> years = new HashMap<>();
+        Map<String, Long> ratings = new HashMap<>();
+        long total = 0;
+        for (FacetRow row : current.rows.values()) {
+            if (wantedGenres != null && !wantedGenres.isEmpty()
+                    && wantedGenres.stream().noneMatch(row.genres()::contains)) {
+                continue;
+            }
+            if (!matcher.matches(row.year(), row.pages(), row.chapters(), row.rating())) {
+                continue;
+            }
+            total++;
+            for (String genre : row.genres()) {
+                genres.merge(genre, 1L, Long::sum);
+            }
+            if (row.year() != CatalogFilterMatcher.NO_VALUE) {
+                years.merge(row.year(), 1L, Long::sum);
+            }
+            ratings.merge(row.ratingBucket(), 1L, Long::sum);
+        }
+
+        BookFacetsDTO facets = new BookFacetsDTO();
+        facets.setTotal(total);
+        facets.getGenres().putAll(genres);
+        facets.getYears().putAll(years);
+        for (String bucket : RATING_BUCKETS) {
+            putIfPositive(facets.getRatings(), bucket, ratings.getOrDefault(bucket, 0L));
+        }
+        putIfPositive(facets.getRatings(), UNRATED, ratings.getOrDefault(UNRATED, 0L));
+        return facets;
+    }
+
+    private static boolean isEmpty(BookFilter filter) {
+        return filter == null
+                || ((filter.getGenres() == null || filter.getGenres().isEmpty())
+                && (filter.getChapterRanges() == null || filter.getChapterRanges().isEmpty())
+                && filter.getMinPages() == null && filter.getMaxPages() == null
+                && filter.getYearFrom() == null && filter.getYearTo() == null
+                && filter.getMinRating() == null);
+    }
+
+    private static long sum(LongAdder adder) {
+        return adder == null ? 0 : adder.sum();
+    }
+
+    private static <K> void putIfPositive(Map<K, Long> target, K key, long value) {
+        if (value > 0) {
+            target.put(key, value);
+        }
+    }
+
+    private static final class Facets {
+        // Минимальное состояние по книге: нужно, чтобы при изменении уменьшить старые счётчики
+        final Map<Long, FacetRow> rows = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> genreCounts = new ConcurrentHashMap<>();
+        final Map<Integer, LongAdder> yearCounts = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> ratingCounts = new ConcurrentHashMap<>();
+
+        void put(Long id, FacetRow row) {
+            rows.put(id, row);
+            for (String genre : row.genres()) {
+                genreCounts.computeIfAbsent(genre, key -> new LongAdder()).increment();
+            }
+            if (row.year() != CatalogFilterMatcher.NO_VALUE) {
+                yearCounts.computeIfAbsent(row.year(), key -> new LongAdder()).increment();
+            }
+            ratingCounts.computeIfAbsent(row.ratingBucket(), key -> new LongAdder()).increment();
+        }
+
+        void remove(Long id) {
+            FacetRow row = rows.remove(id);
+            if (row == null) {
+                return;
+            }
+            for (String genre : row.genres()) {
+                genreCounts.get(genre).decrement();
+            }
+            if (row.year() != CatalogFilterMatcher.NO_VALUE) {
+                yearCounts.get(row.year()).decrement();
+            }
+            ratingCounts.get(row.ratingBucket()).decrement();
+        }
+    }
+
+    private record FacetRow(int year, int pages, int chapters, float rating, Set<String> genres) {
+
+        FacetRow(Integer year, Integer pages, Integer chapters, Double rating, Set<String> genres) {
+            this(orNoValue(year), orNoValue(pages), orNoValue(chapters),
+                    rating == null ? Float.NaN : rating.floatValue(), Set.copyOf(genres));
+        }
+
+        FacetRow withRating(Double newRating) {
+            return new FacetRow(year, pages, chapters,
+                    newRating == null ? Float.NaN : newRating.floatValue(), genres);
+        }
+
+        String ratingBucket() {
+            if (Float.isNaN(rating)) {
+                return UNRATED;
+            }
+            int bucket = Math.max(0, Math.min(RATING_BUCKETS.length - 1, (int) Math.floor(rating)));
+            return RATING_BUCKETS[bucket];
+        }
+
+        private static int orNoValue(Integer value) {
+            return value == null ? CatalogFilterMatcher.NO_VALUE : value;
+        }
+    }
+}
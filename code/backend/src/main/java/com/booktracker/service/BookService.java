@@ -1,15 +1,44 @@
 package com.booktracker.service;
 
+import com.booktracker.cache.LocalCache;
 import com.booktracker.dto.AuthorDTO;
+import com.booktracker.dto.BookCardDTO;
 import com.booktracker.dto.BookDTO;
+import com.booktracker.dto.BookFilter;
+import com.booktracker.dto.CursorPage;
 import com.booktracker.dto.GenreDTO;
+import com.booktracker.entity.Author;
 import com.booktracker.entity.Book;
+import com.booktracker.entity.Genre;
+import com.booktracker.event.BookCoverStoredEvent;
+import com.booktracker.event.BookRatingChangedEvent;
+import com.booktracker.event.BookSavedEvent;
+import com.booktracker.mapper.AuthorMapper;
+import com.booktracker.mapper.BookMapper;
 import com.booktracker.repository.BookRepository;
+import com.booktracker.repository.BookSort;
+import com.booktracker.repository.BookSpecifications;
+import com.booktracker.repository.KeysetCursor;
+import com.booktracker.repository.KeysetSpecifications;
+import com.booktracker.search.SearchHits;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,87 +46,196 @@ import java.util.stream.Collectors;
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final ObjectProvider<CatalogIndex> catalogIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FullTextSearchService fullTextSearchService;
+    private final FuzzySearchService fuzzySearchService;
+    private final LocalCache<Long, BookDTO> bookDetailCache;
 
     public Page<BookDTO> getAllBooks(Pageable pageable) {
         Page<Book> booksPage = bookRepository.findAll(pageable);
         System.out.println("Total books in DB: " + booksPage.getTotalElements());
         System.out.println("Books on current page: " + booksPage.getContent().size());
 
-        return booksPage.map(this::convertToDTO);
+        return toDTOPage(booksPage);
     }
 
     public BookDTO getBookById(Long id) {
+        return bookDetailCache.get(id, this::loadBook);
+    }
+
+    private BookDTO loadBook(Long id) {
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Book not found with id: " + id));
-        return convertToDTO(book);
+        return BookMapper.toDTO(book);
     }
 
     public Page<BookDTO> searchBooks(String query, Pageable pageable) {
-        return bookRepository.findByTitleContainingIgnoreCase(query, pageable)
-                .map(this::convertToDTO);
+        return toDTOPage(bookRepository.findByTitleContainingIgnoreCase(query, pageable));
+    }
+
+    // Ранжированный поиск по названию, ISBN, авторам и описанию; пока индекс строится - поиск по подстроке
+    public Page<BookDTO> searchBooksByRelevance(String query, Pageable pageable) {
+        if (!fullTextSearchService.isReady()) {
+            return searchBooks(query, pageable);
+        }
+        SearchHits hits = fullTextSearchService.searchBooks(query, pageable);
+        return new PageImpl<>(loadInOrder(hits.ids()), pageable, hits.total());
+    }
+
+    // Нечёткий поиск по названию с транслитерацией; пока деревья строятся - поиск по подстроке
+    public Page<BookDTO> searchBooksFuzzy(String query, Pageable pageable) {
+        if (!fuzzySearchService.isReady()) {
+            return searchBooks(query, pageable);
+        }
+        SearchHits hits = fuzzySearchService.searchBooks(query, pageable);
+        return new PageImpl<>(loadInOrder(hits.ids()), pageable, hits.total());
     }
 
     public Page<BookDTO> getBooksByGenre(String genre, Pageable pageable) {
-        return bookRepository.findByGenre(genre, pageable)
-                .map(this::convertToDTO);
+        return toDTOPage(bookRepository.findByGenre(genre, pageable));
     }
 
     public Page<BookDTO> getLatestBooks(Pageable pageable) {
-        return bookRepository.findLatestBooks(pageable)
-                .map(this::convertToDTO);
+        return toDTOPage(bookRepository.findLatestBooks(pageable));
     }
 
     // ИСПРАВЛЕНО: используем правильный метод репозитория
     public Page<BookDTO> getBooksByYear(Integer year, Pageable pageable) {
-        return bookRepository.findByYear(year, pageable)
-                .map(this::convertToDTO);
+        return toDTOPage(bookRepository.findByYear(year, pageable));
+    }
+
+    // Фильтрация, сортировка и пагинация выполняются в индексе каталога, если он включён, иначе в БД
+    public Page<BookDTO> filterBooks(BookFilter filter, BookSort sort, Pageable pageable) {
+        CatalogIndex index = catalogIndex.getIfAvailable();
+        if (index != null && index.isReady()) {
+            Page<Long> ids = index.query(filter, sort, pageable);
+            return new PageImpl<>(loadInOrder(ids.getContent()), pageable, ids.getTotalElements());
+        }
+
+        Pageable sorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.toSort());
+        return toDTOPage(bookRepository.findPage(BookSpecifications.matches(filter), sorted));
+    }
+
+    // Карточки каталога: constructor-проекция из SQL, имена авторов - одним пакетным запросом
+    public Page<BookCardDTO> filterBookCards(BookFilter filter, BookSort sort, Pageable pageable) {
+        CatalogIndex index = catalogIndex.getIfAvailable();
+        if (index != null && index.isReady()) {
+            Page<Long> ids = index.query(filter, sort, pageable);
+            Map<Long, BookCardDTO> cards = bookRepository.findCardsByIds(ids.getContent()).stream()
+                    .collect(Collectors.toMap(BookCardDTO::getId, Function.identity()));
+            List<BookCardDTO> content = ids.getContent().stream()
+                    .map(cards::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            return new PageImpl<>(withAuthorNames(content), pageable, ids.getTotalElements());
+        }
+
+        Pageable sorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.toSort());
+        Page<BookCardDTO> page = bookRepository.findCards(BookSpecifications.matches(filter), sorted);
+        withAuthorNames(page.getContent());
+        return page;
+    }
+
+    public Page<BookCardDTO> getAllBookCards(Pageable pageable) {
+        Page<BookCardDTO> page = bookRepository.findCards(null, pageable);
+        withAuthorNames(page.getContent());
+        return page;
+    }
+
+    public Page<BookCardDTO> getListBookCards(Long listId, Pageable pageable) {
+        Page<BookCardDTO> page = bookRepository.findCardsByListId(listId, pageable);
+        withAuthorNames(page.getContent());
+        return page;
+    }
+
+    // Keyset-пагинация каталога: условие "после курсора" + LIMIT size + 1, без OFFSET и COUNT(*)
+    public CursorPage<BookDTO> scrollBooks(BookFilter filter, BookSort sort, String cursor, int size) {
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor, sort.getCode());
+        Specification<Book> spec = BookSpecifications.matches(filter)
+                .and(KeysetSpecifications.after(sort.getAttribute(), sort.isAscending(), after));
+        List<Book> rows = bookRepository.findFirst(spec, sort.toSort(), size + 1);
+
+        boolean hasNext = rows.size() > size;
+        List<Book> content = hasNext ? rows.subList(0, size) : rows;
+        String next = null;
+        if (hasNext) {
+            Book last = content.get(content.size() - 1);
+            next = new KeysetCursor(sort.getCode(), sort.keyOf(last), last.getId()).encode();
+        }
+        return new CursorPage<>(toDTOs(content), next, hasNext, size);
     }
 
     public BookDTO createBook(Book book) {
         Book savedBook = bookRepository.save(book);
-        return convertToDTO(savedBook);
-    }
-
-    private BookDTO convertToDTO(Book book) {
-        BookDTO dto = new BookDTO();
-        dto.setId(book.getId());
-        dto.setTitle(book.getTitle());
-        dto.setIsbn(book.getIsbn());
-        dto.setYear(book.getYear());
-        dto.setDescription(book.getDescription());
-        dto.setCoverUrl(book.getCoverUrl());
-        dto.setPages(book.getPages());
-        dto.setChapters(book.getChapters());
-        dto.setAverageRating(book.getAverageRating());
-        dto.setRatingsCount(book.getRatingsCount());
-
-        // Конвертация авторов - используем biography вместо bio
-        if (book.getAuthors() != null) {
-            dto.setAuthors(book.getAuthors().stream()
-                    .map(author -> {
-                        var authorDTO = new AuthorDTO();
-                        authorDTO.setId(author.getId());
-                        authorDTO.setName(author.getName());
-                        authorDTO.setBiography(author.getBiography()); // Используем getBiography()
-                        authorDTO.setPhotoUrl(author.getPhotoUrl());
-                        return authorDTO;
-                    })
-                    .collect(Collectors.toSet()));
-        }
+        eventPublisher.publishEvent(new BookSavedEvent(savedBook));
+        return BookMapper.toDTO(savedBook);
+    }
+
+    // Инвалидация карточки книги: события публикуются синхронно, поэтому после createBook кэш уже чист
+    @EventListener
+    public void onBookSaved(BookSavedEvent event) {
+        bookDetailCache.invalidate(event.book().getId());
+    }
+
+    @EventListener
+    public void onBookRatingChanged(BookRatingChangedEvent event) {
+        bookDetailCache.invalidate(event.bookId());
+    }
+
+    @EventListener
+    public void onBookCoverStored(BookCoverStoredEvent event) {
+        bookDetailCache.invalidate(event.bookId());
+    }
+
+    // Загружает книги по id одним запросом и сохраняет порядок списка
+    private List<BookDTO> loadInOrder(List<Long> ids) {
+        Map<Long, Book> books = bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return toDTOs(ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
 
-        // Конвертация жанров
-        if (book.getGenres() != null) {
-            dto.setGenres(book.getGenres().stream()
-                    .map(genre -> {
-                        var genreDTO = new GenreDTO();
-                        genreDTO.setId(genre.getId());
-                        genreDTO.setName(genre.getName());
-                        return genreDTO;
-                    })
-                    .collect(Collectors.toSet()));
+    private List<BookCardDTO> withAuthorNames(List<BookCardDTO> cards) {
+        if (cards.isEmpty()) {
+            return cards;
         }
+        Map<Long, BookCardDTO> byId = cards.stream()
+                .collect(Collectors.toMap(BookCardDTO::getId, Function.identity()));
+        for (Object[] row : bookRepository.findAuthorNamesByBookIds(byId.keySet())) {
+            byId.get((Long) row[0]).getAuthorNames().add((String) row[1]);
+        }
+        return cards;
+    }
 
-        return dto;
+    private Page<BookDTO> toDTOPage(Page<Book> page) {
+        return new PageImpl<>(toDTOs(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    /**
+     * Конвертирует список книг, загружая авторов и жанры двумя пакетными запросами по book_id
+     * вместо двух ленивых загрузок на каждую строку: число запросов не зависит от размера страницы.
+     */
+    List<BookDTO> toDTOs(List<Book> books) {
+        if (books.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = books.stream().map(Book::getId).toList();
+        Map<Long, Set<AuthorDTO>> authors = new HashMap<>();
+        for (Object[] row : bookRepository.findAuthorsByBookIds(ids)) {
+            authors.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add(AuthorMapper.toDTO((Author) row[1]));
+        }
+        Map<Long, Set<GenreDTO>> genres = new HashMap<>();
+        for (Object[] row : bookRepository.findGenresByBookIds(ids)) {
+            genres.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add(BookMapper.toGenreDTO((Genre) row[1]));
+        }
+        return books.stream()
+                .map(book -> BookMapper.toDTO(book,
+                        authors.getOrDefault(book.getId(), new HashSet<>()),
+                        genres.getOrDefault(book.getId(), new HashSet<>())))
+                .toList();
     }
 
     // Добавим метод для отладки
@@ -0,0 +1,117 @@
+package com.booktracker.service;
+
+import com.booktracker.cache.LocalCache;
+import com.booktracker.dto.BookSummaryDTO;
+import com.booktracker.entity.Review;
+import com.booktracker.event.BookRatingChangedEvent;
+import com.booktracker.event.ReviewApprovedEvent;
+import com.booktracker.event.ReviewsModeratedEvent;
+import com.booktracker.mapper.ReviewMapper;
+import com.booktracker.repository.BookRepository;
+import com.booktracker.repository.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Сводка по книге (гистограмма, средняя оценка, число отзывов, последние отзывы) хранится готовой в кэше:
+ * страница книги получает её одним попаданием вместо страницы отзывов и агрегирующего запроса.
+ * После одобрения отзыва и сброса рейтингов сводка только инвалидируется и собирается при следующем запросе:
+ * рейтинги книги обновляются отложенно, и сводка, собранная сразу после одобрения, видела бы новый отзыв
+ * со старой гистограммой.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookSummaryService {
+
+    private static final int RECENT_REVIEWS = 5;
+    private static final int STARS = 5;
+
+    private final LocalCache<Long, BookSummaryDTO> bookSummaryCache;
+    private final BookRepository bookRepository;
+    private final ReviewRepository reviewRepository;
+
+    public BookSummaryDTO getSummary(Long bookId) {
+        return bookSummaryCache.get(bookId, this::loadSummary);
+    }
+
+    // Попадания отдаются из кэша, промахи загружаются пакетом; отсутствующие книги пропускаются,
+    // порядок ids сохраняется
+    public List<BookSummaryDTO> getSummaries(List<Long> bookIds) {
+        return new ArrayList<>(bookSummaryCache.getAll(bookIds, this::loadSummaries).values());
+    }
+
+    // После коммита: следующий запрос должен увидеть одобренный отзыв
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewApproved(ReviewApprovedEvent event) {
+        bookSummaryCache.invalidate(event.review().getBookId());
+    }
+
+    // Массовая модерация: сводки книг пакета сбрасываются один раз, пересчёт - при следующем запросе
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewsModerated(ReviewsModeratedEvent event) {
+        event.bookIds().forEach(bookSummaryCache::invalidate);
+    }
+
+    @EventListener
+    public void onBookRatingChanged(BookRatingChangedEvent event) {
+        bookSummaryCache.invalidate(event.bookId());
+    }
+
+    private BookSummaryDTO loadSummary(Long bookId) {
+        List<Object[]> rows = bookRepository.findRatingColumnsByIdRange(bookId, bookId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Book not found with id: " + bookId);
+        }
+        return toSummary(rows.get(0), reviewRepository.countApprovedByBookId(bookId),
+                reviewRepository.findRecentApprovedByBookId(bookId, Limit.of(RECENT_REVIEWS)));
+    }
+
+    // Три запроса на весь пакет промахов независимо от его размера
+    private Map<Long, BookSummaryDTO> loadSummaries(Set<Long> bookIds) {
+        List<Object[]> rows = bookRepository.findRatingColumnsByIds(bookIds);
+        if (rows.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Long> reviewCounts = new HashMap<>();
+        for (Object[] count : reviewRepository.countApprovedByBookIds(bookIds)) {
+            reviewCounts.put((Long) count[0], ((Number) count[1]).longValue());
+        }
+        Map<Long, List<Review>> recent = reviewRepository.findRecentApprovedByBookIds(bookIds, RECENT_REVIEWS)
+                .stream()
+                .collect(Collectors.groupingBy(review -> review.getBook().getId()));
+
+        Map<Long, BookSummaryDTO> summaries = new HashMap<>();
+        for (Object[] row : rows) {
+            Long bookId = (Long) row[0];
+            summaries.put(bookId, toSummary(row, reviewCounts.getOrDefault(bookId, 0L),
+                    recent.getOrDefault(bookId, List.of())));
+        }
+        return summaries;
+    }
+
+    // row: id, пять счётчиков гистограммы, ratingsCount, averageRating; recent - от новых к старым
+    private BookSummaryDTO toSummary(Object[] row, long reviewsCount, List<Review> recent) {
+        BookSummaryDTO summary = new BookSummaryDTO();
+        summary.setBookId((Long) row[0]);
+        for (int star = 1; star <= STARS; star++) {
+            summary.getHistogram().add(row[star] == null ? 0L : ((Number) row[star]).longValue());
+        }
+        summary.setRatingsCount(row[STARS + 1] == null ? 0 : (Integer) row[STARS + 1]);
+        summary.setAverageRating((Double) row[STARS + 2]);
+        summary.setReviewsCount(reviewsCount);
+        summary.setRecentReviews(recent.stream()
+                .map(ReviewMapper::toDTO)
+                .toList());
+        return summary;
+    }
+}
@@ -0,0 +1,79 @@
+package com.booktracker.service;
+
+import com.booktracker.entity.Author;
+import com.booktracker.entity.Book;
+import com.booktracker.mapper.AuthorMapper;
+import com.booktracker.repository.AuthorRepository;
+import com.booktracker.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка каталога в NDJSON (одна JSON-запись на строку, по возрастанию id).
+ * Записи читаются курсором и обрабатываются порциями: после каждой порции контекст персистентности
+ * очищается, поэтому память не растёт с размером каталога. Для продолжения оборванной выгрузки
+ * клиент передаёт id последней полученной строки.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogExportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final BookService bookService;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Потоковый запрос Spring Data требует открытой транзакции
+    @Transactional(readOnly = true)
+    public long exportBooks(long afterId, OutputStream out) throws IOException {
+        try (Stream<Book> books = bookRepository.streamAfter(afterId)) {
+            return writeInChunks(books, bookService::toDTOs, out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportAuthors(long afterId, OutputStream out) throws IOException {
+        try (Stream<Author> authors = authorRepository.streamAfter(afterId)) {
+            return writeInChunks(authors, chunk -> chunk.stream().map(AuthorMapper::toDTO).toList(), out);
+        }
+    }
+
+    private <E> long writeInChunks(Stream<E> entities, Function<List<E>, List<?>> converter,
+                                   OutputStream out) throws IOException {
+        Iterator<E> iterator = entities.iterator();
+        List<E> chunk = new ArrayList<>(CHUNK_SIZE);
+        long written = 0;
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                for (Object dto : converter.apply(chunk)) {
+                    out.write(objectMapper.writeValueAsBytes(dto));
+                    out.write('\n');
+                }
+                written += chunk.size();
+                chunk.clear();
+                // Отсоединяем прочитанные книги и подгруженных авторов/жанры
+                entityManager.clear();
+                out.flush();
+            }
+        }
+        return written;
+    }
+}
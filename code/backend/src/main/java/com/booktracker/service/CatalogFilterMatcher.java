@@ -0,0 +1,83 @@
+package com.booktracker.service;
+
+import com.booktracker.dto.BookFilter;
+import com.booktracker.repository.BookSpecifications;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Скалярная часть {@link BookFilter}, разобранная один раз на запрос, для проверки строк
+ * в структурах каталога в памяти. Семантика совпадает с BookSpecifications: отсутствующее
+ * значение ({@link #NO_VALUE} / NaN) не попадает ни в один диапазон.
+ */
+final class CatalogFilterMatcher {
+
+    static final int NO_VALUE = Integer.MIN_VALUE;
+
+    private final int[][] chapterRanges;
+    private final Integer minPages;
+    private final Integer maxPages;
+    private final Integer yearFrom;
+    private final Integer yearTo;
+    // Рейтинги в индексах хранятся во float: порог приводится к тому же типу, иначе 4.1f >= 4.1 ложно
+    private final Float minRating;
+
+    CatalogFilterMatcher(BookFilter filter) {
+        this.chapterRanges = parseRanges(filter.getChapterRanges());
+        this.minPages = filter.getMinPages();
+        this.maxPages = filter.getMaxPages();
+        this.yearFrom = filter.getYearFrom();
+        this.yearTo = filter.getYearTo();
+        this.minRating = filter.getMinRating() == null ? null : filter.getMinRating().floatValue();
+    }
+
+    boolean matches(int year, int pages, int chapters, float rating) {
+        if (chapterRanges != null && !inChapterRanges(chapters)) {
+            return false;
+        }
+        if (!inRange(pages, minPages, maxPages) || !inRange(year, yearFrom, yearTo)) {
+            return false;
+        }
+        return minRating == null || (!Float.isNaN(rating) && rating >= minRating);
+    }
+
+    private boolean inChapterRanges(int chapters) {
+        if (chapters == NO_VALUE) {
+            return false;
+        }
+        for (int[] range : chapterRanges) {
+            boolean inside = range[1] == Integer.MAX_VALUE
+                    ? chapters >= range[0]
+                    : chapters >= range[0] && chapters < range[1];
+            if (inside) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean inRange(int value, Integer from, Integer to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        if (value == NO_VALUE) {
+            return false;
+        }
+        return (from == null || value >= from) && (to == null || value <= to);
+    }
+
+    private static int[][] parseRanges(List<String> ranges) {
+        if (ranges == null || ranges.isEmpty()) {
+            return null;
+        }
+        List<int[]> parsed = new ArrayList<>();
+        for (String range : ranges) {
+            int[] bounds = BookSpecifications.parseRange(range);
+            if (bounds != null) {
+                parsed.add(bounds);
+            }
+        }
+        return parsed.isEmpty() ? null : parsed.toArray(new int[0][]);
+    }
+}
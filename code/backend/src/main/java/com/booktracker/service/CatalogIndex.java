@@ -0,0 +1,457 @@
+package com.booktracker.service;
+
+import com.booktracker.dto.BookFilter;
+import com.booktracker.entity.Book;
+import com.booktracker.entity.Genre;
+import com.booktracker.event.BookRatingChangedEvent;
+import com.booktracker.event.BookRatingsChangedEvent;
+import com.booktracker.event.BookSavedEvent;
+import com.booktracker.event.CatalogImportedEvent;
+import com.booktracker.repository.BookRepository;
+import com.booktracker.repository.BookSort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Колоночный индекс каталога в памяти. Колонки хранятся в параллельных примитивных массивах,
+ * жанры - в битовых масках по номеру строки, для каждого порядка {@link BookSort} заранее
+ * построена перестановка строк. Фильтрация и пагинация идут без SQL, наружу отдаются только id страницы.
+ * Читатели работают с неизменяемым снимком, писатели подменяют его под блокировкой.
+ * Снимок обновляется по событиям {@link BookSavedEvent} и {@link BookRatingsChangedEvent}: изменения рейтингов
+ * одного сброса применяются одним новым снимком.
+ * Порядок по названию берётся из БД (её правила сравнения строк), а не из Java: страницы индекса
+ * и /scroll должны совпадать.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "catalog.index.enabled", havingValue = "true")
+public class CatalogIndex {
+
+    private static final int NO_VALUE = CatalogFilterMatcher.NO_VALUE;
+
+    private final BookRepository bookRepository;
+
+    private volatile Snapshot snapshot;
+    // Изменения, пришедшие во время перестроения: применяются к новому снимку перед подменой. Под this
+    private List<UnaryOperator<Snapshot>> pendingUpdates;
+    private final Object rebuildLock = new Object();
+
+    // После импорта снимок перестраивается целиком: вставка по одной книге стоила бы O(n) на каждую
+    @EventListener({ApplicationReadyEvent.class, CatalogImportedEvent.class})
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                pendingUpdates = new ArrayList<>();
+            }
+            try {
+                Snapshot built = build();
+                synchronized (this) {
+                    for (UnaryOperator<Snapshot> update : pendingUpdates) {
+                        built = update.apply(built);
+                    }
+                    snapshot = built;
+                }
+            } finally {
+                synchronized (this) {
+                    pendingUpdates = null;
+                }
+            }
+        }
+    }
+
+    private Snapshot build() {
+        long started = System.currentTimeMillis();
+        List<Object[]> rows = bookRepository.findCatalogColumns();
+        Map<Long, Set<String>> genresByBook = new HashMap<>();
+        for (Object[] row : bookRepository.findGenreNamesByBook()) {
+            genresByBook.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+
+        Snapshot.Builder builder = new Snapshot.Builder(rows.size());
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            builder.add(id, (Integer) row[2], (Integer) row[3], (Integer) row[4],
+                    (Double) row[5], (Integer) row[6], genresByBook.getOrDefault(id, Set.of()));
+        }
+        Snapshot built = builder.build();
+        log.info("Catalog index built: {} books in {} ms", built.size, System.currentTimeMillis() - started);
+        return built;
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Возвращает id книг запрошенной страницы в порядке сортировки и общее число совпадений.
+     */
+    public Page<Long> query(BookFilter filter, BookSort sort, Pageable pageable) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Catalog index is not built yet");
+        }
+        return current.query(filter, sort, pageable);
+    }
+
+    @EventListener
+    public void onBookSaved(BookSavedEvent event) {
+        Book book = event.book();
+        Set<String> genres = new HashSet<>();
+        if (book.getGenres() != null) {
+            for (Genre genre : book.getGenres()) {
+                genres.add(genre.getName());
+            }
+        }
+        long titlePosition = bookRepository.countBeforeInTitleOrder(book.getTitle(), book.getId());
+        update(current -> current.upsert(book.getId(), book.getYear(), book.getPages(),
+                book.getChapters(), book.getAverageRating(), book.getRatingsCount(), genres, titlePosition));
+    }
+
+    @EventListener
+    public void onRatingsChanged(BookRatingsChangedEvent event) {
+        update(current -> current.withRatings(event.changes()));
+    }
+
+    private synchronized void update(UnaryOperator<Snapshot> change) {
+        if (snapshot != null) {
+            snapshot = change.apply(snapshot);
+        }
+        if (pendingUpdates != null) {
+            pendingUpdates.add(change);
+        }
+    }
+
+    private static final class Snapshot {
+        final int size;
+        final long[] ids;
+        final int[] years;
+        final int[] pages;
+        final int[] chapters;
+        final float[] ratings;
+        final int[] ratingsCounts;
+        final Map<String, BitSet> genres;
+        final Map<Long, Integer> rowById;
+        final EnumMap<BookSort, int[]> orders;
+
+        private Snapshot(int size, long[] ids, int[] years, int[] pages, int[] chapters,
+                         float[] ratings, int[] ratingsCounts, Map<String, BitSet> genres,
+                         Map<Long, Integer> rowById, EnumMap<BookSort, int[]> orders) {
+            this.size = size;
+            this.ids = ids;
+            this.years = years;
+            this.pages = pages;
+            this.chapters = chapters;
+            this.ratings = ratings;
+            this.ratingsCounts = ratingsCounts;
+            this.genres = genres;
+            this.rowById = rowById;
+            this.orders = orders;
+        }
+
+        Page<Long> query(BookFilter filter, BookSort sort, Pageable pageable) {
+            BitSet genreMask = genreMask(filter.getGenres());
+            CatalogFilterMatcher matcher = new CatalogFilterMatcher(filter);
+            int[] order = orders.get(sort);
+
+            long offset = pageable.getOffset();
+            int limit = pageable.getPageSize();
+            List<Long> content = new ArrayList<>(Math.min(limit, size));
+            long total = 0;
+            for (int position = 0; position < size; position++) {
+                int row = order[position];
+                if (genreMask != null && !genreMask.get(row)) {
+                    continue;
+                }
+                if (!matcher.matches(years[row], pages[row], chapters[row], ratings[row])) {
+                    continue;
+                }
+                if (total >= offset && content.size() < limit) {
+                    content.add(ids[row]);
+                }
+                total++;
+            }
+            return new PageImpl<>(content, pageable, total);
+        }
+
+        private BitSet genreMask(List<String> names) {
+            if (names == null || names.isEmpty()) {
+                return null;
+            }
+            BitSet mask = new BitSet(size);
+            for (String name : names) {
+                BitSet bits = genres.get(name);
+                if (bits != null) {
+                    mask.or(bits);
+                }
+            }
+            return mask;
+        }
+
+        // Строки сохраняют номера, поэтому битовые маски и перестановки правятся точечно
+        Snapshot upsert(Long id, Integer year, Integer pageCount, Integer chapterCount,
+                        Double averageRating, Integer count, Set<String> genreNames, long titlePosition) {
+            Integer existing = rowById.get(id);
+            int row = existing != null ? existing : size;
+            int newSize = existing != null ? size : size + 1;
+
+            long[] newIds = Arrays.copyOf(ids, newSize);
+            int[] newYears = Arrays.copyOf(years, newSize);
+            int[] newPages = Arrays.copyOf(pages, newSize);
+            int[] newChapters = Arrays.copyOf(chapters, newSize);
+            float[] newRatings = Arrays.copyOf(ratings, newSize);
+            int[] newCounts = Arrays.copyOf(ratingsCounts, newSize);
+            newIds[row] = id;
+            newYears[row] = year == null ? NO_VALUE : year;
+            newPages[row] = pageCount == null ? NO_VALUE : pageCount;
+            newChapters[row] = chapterCount == null ? NO_VALUE : chapterCount;
+            newRatings[row] = averageRating == null ? Float.NaN : averageRating.floatValue();
+            newCounts[row] = count == null ? 0 : count;
+
+            Map<String, BitSet> newGenres = new HashMap<>(genres);
+            for (Map.Entry<String, BitSet> entry : genres.entrySet()) {
+                if (entry.getValue().get(row) && !genreNames.contains(entry.getKey())) {
+                    BitSet bits = (BitSet) entry.getValue().clone();
+                    bits.clear(row);
+                    newGenres.put(entry.getKey(), bits);
+                }
+            }
+            for (String genre : genreNames) {
+                BitSet current = genres.get(genre);
+                if (current == null || !current.get(row)) {
+                    BitSet bits = current == null ? new BitSet(newSize) : (BitSet) current.clone();
+                    bits.set(row);
+                    newGenres.put(genre, bits);
+                }
+            }
+
+            // Номера строк не меняются, поэтому карта id -> строка копируется только для новой книги
+            Map<Long, Integer> newRowById = rowById;
+            if (existing == null) {
+                newRowById = new HashMap<>(rowById);
+                newRowById.put(id, row);
+            }
+            EnumMap<BookSort, int[]> newOrders = new EnumMap<>(BookSort.class);
+            Snapshot next = new Snapshot(newSize, newIds, newYears, newPages, newChapters,
+                    newRatings, newCounts, newGenres, newRowById, newOrders);
+            for (BookSort sort : BookSort.values()) {
+                int[] order = orders.get(sort);
+                newOrders.put(sort, isTitleSort(sort)
+                        ? next.insertAt(order, row, existing != null, titlePosition, sort == BookSort.TITLE_DESC)
+                        : next.reposition(order, row, existing != null, sort));
+            }
+            return next;
+        }
+
+        // Пачка изменений рейтинга за одно копирование колонок и один проход по перестановке RATING_DESC;
+        // остальные массивы и карта строк разделяются
+        Snapshot withRatings(List<BookRatingChangedEvent> changes) {
+            float[] newRatings = ratings.clone();
+            int[] newCounts = ratingsCounts.clone();
+            BitSet changed = new BitSet(size);
+            for (BookRatingChangedEvent change : changes) {
+                Integer row = rowById.get(change.bookId());
+                if (row != null) {
+                    newRatings[row] = change.averageRating() == null ? Float.NaN : change.averageRating().floatValue();
+                    newCounts[row] = change.ratingsCount() == null ? 0 : change.ratingsCount();
+                    changed.set(row);
+                }
+            }
+            if (changed.isEmpty()) {
+                return this;
+            }
+            EnumMap<BookSort, int[]> newOrders = new EnumMap<>(orders);
+            Snapshot next = new Snapshot(size, ids, years, pages, chapters, newRatings, newCounts,
+                    genres, rowById, newOrders);
+            newOrders.put(BookSort.RATING_DESC,
+                    next.merge(orders.get(BookSort.RATING_DESC), changed, BookSort.RATING_DESC));
+            return next;
+        }
+
+        // Неизменённые строки сохраняют взаимный порядок: изменённые сортируются отдельно
+        // и сливаются с ними за один проход
+        int[] merge(int[] order, BitSet changed, BookSort sort) {
+            Comparator<Integer> comparator = comparator(sort);
+            Integer[] moved = changed.stream().boxed().sorted(comparator).toArray(Integer[]::new);
+            int[] result = new int[size];
+            int length = 0;
+            int next = 0;
+            for (int row : order) {
+                if (changed.get(row)) {
+                    continue;
+                }
+                while (next < moved.length && comparator.compare(moved[next], row) < 0) {
+                    result[length++] = moved[next++];
+                }
+                result[length++] = row;
+            }
+            while (next < moved.length) {
+                result[length++] = moved[next++];
+            }
+            return result;
+        }
+
+        // Убирает строку из старой перестановки и вставляет её на место, найденное бинарным поиском
+        int[] reposition(int[] order, int row, boolean present, BookSort sort) {
+            Comparator<Integer> comparator = comparator(sort);
+            int[] without = without(order, row, present);
+            int length = size - 1;
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(without[mid], row) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return insert(without, row, low);
+        }
+
+        // Порядок по названию: позицию строки сообщает БД, сравнивать названия в Java нельзя
+        int[] insertAt(int[] order, int row, boolean present, long titlePosition, boolean descending) {
+            int[] without = without(order, row, present);
+            int length = size - 1;
+            int position = (int) Math.min(Math.max(titlePosition, 0), length);
+            return insert(without, row, descending ? length - position : position);
+        }
+
+        private int[] without(int[] order, int row, boolean present) {
+            int[] without = new int[size - 1];
+            int length = 0;
+            for (int candidate : order) {
+                if (!present || candidate != row) {
+                    without[length++] = candidate;
+                }
+            }
+            return without;
+        }
+
+        private int[] insert(int[] without, int row, int position) {
+            int[] result = new int[size];
+            System.arraycopy(without, 0, result, 0, position);
+            result[position] = row;
+            System.arraycopy(without, position, result, position + 1, size - 1 - position);
+            return result;
+        }
+
+        // Строки загружены в порядке (title, id) из БД: для порядков по названию это и есть перестановка
+        int[] sortedRows(BookSort sort) {
+            if (isTitleSort(sort)) {
+                int[] order = new int[size];
+                for (int position = 0; position < size; position++) {
+                    order[position] = sort == BookSort.TITLE_ASC ? position : size - 1 - position;
+                }
+                return order;
+            }
+            Integer[] rows = new Integer[size];
+            for (int row = 0; row < size; row++) {
+                rows[row] = row;
+            }
+            Arrays.sort(rows, comparator(sort));
+            int[] order = new int[size];
+            for (int position = 0; position < size; position++) {
+                order[position] = rows[position];
+            }
+            return order;
+        }
+
+        private static boolean isTitleSort(BookSort sort) {
+            return sort == BookSort.TITLE_ASC || sort == BookSort.TITLE_DESC;
+        }
+
+        // Повторяет BookSort.toSort() для порядков, кроме названия: ключ сортировки, NULL в конце,
+        // затем id в том же направлении
+        private Comparator<Integer> comparator(BookSort sort) {
+            switch (sort) {
+                case YEAR_ASC:
+                    return (a, b) -> compareNullsLast(years[a], years[b], false, a, b);
+                case YEAR_DESC:
+                    return (a, b) -> compareNullsLast(years[a], years[b], true, a, b);
+                case RATING_DESC:
+                    return (a, b) -> {
+                        boolean nullA = Float.isNaN(ratings[a]);
+                        boolean nullB = Float.isNaN(ratings[b]);
+                        if (nullA != nullB) {
+                            return nullA ? 1 : -1;
+                        }
+                        int cmp = nullA ? 0 : Float.compare(ratings[b], ratings[a]);
+                        return cmp != 0 ? cmp : Long.compare(ids[b], ids[a]);
+                    };
+                default:
+                    throw new IllegalArgumentException("Title order comes from the database: " + sort);
+            }
+        }
+
+        private int compareNullsLast(int valueA, int valueB, boolean descending, int a, int b) {
+            if ((valueA == NO_VALUE) != (valueB == NO_VALUE)) {
+                return valueA == NO_VALUE ? 1 : -1;
+            }
+            int cmp = descending ? Integer.compare(valueB, valueA) : Integer.compare(valueA, valueB);
+            if (cmp != 0) {
+                return cmp;
+            }
+            return descending ? Long.compare(ids[b], ids[a]) : Long.compare(ids[a], ids[b]);
+        }
+
+        private static final class Builder {
+            private int size;
+            private long[] ids;
+            private int[] years;
+            private int[] pages;
+            private int[] chapters;
+            private float[] ratings;
+            private int[] ratingsCounts;
+            private final Map<String, BitSet> genres = new HashMap<>();
+
+            Builder(int capacity) {
+                ids = new long[capacity];
+                years = new int[capacity];
+                pages = new int[capacity];
+                chapters = new int[capacity];
+                ratings = new float[capacity];
+                ratingsCounts = new int[capacity];
+            }
+
+            void add(Long id, Integer year, Integer pageCount, Integer chapterCount,
+                     Double averageRating, Integer count, Set<String> genreNames) {
+                int row = size++;
+                ids[row] = id;
+                years[row] = year == null ? NO_VALUE : year;
+                pages[row] = pageCount == null ? NO_VALUE : pageCount;
+                chapters[row] = chapterCount == null ? NO_VALUE : chapterCount;
+                ratings[row] = averageRating == null ? Float.NaN : averageRating.floatValue();
+                ratingsCounts[row] = count == null ? 0 : count;
+                for (String genre : genreNames) {
+                    genres.computeIfAbsent(genre, name -> new BitSet()).set(row);
+                }
+            }
+
+            Snapshot build() {
+                Map<Long, Integer> rowById = new HashMap<>(size * 2);
+                for (int row = 0; row < size; row++) {
+                    rowById.put(ids[row], row);
+                }
+                EnumMap<BookSort, int[]> orders = new EnumMap<>(BookSort.class);
+                Snapshot built = new Snapshot(size, Arrays.copyOf(ids, size),
+                        Arrays.copyOf(years, size), Arrays.copyOf(pages, size), Arrays.copyOf(chapters, size),
+                        Arrays.copyOf(ratings, size), Arrays.copyOf(ratingsCounts, size), genres, rowById, orders);
+                for (BookSort sort : BookSort.values()) {
+                    orders.put(sort, built.sortedRows(sort));
+                }
+                return built;
+            }
+        }
+    }
+}
@@ -1,38 +1,69 @@
 package com.booktracker.service;
 
+import com.booktracker.enrichment.IsbnEnrichmentService;
+import com.booktracker.enrichment.IsbnMetadata;
 import com.booktracker.entity.Author;
 import com.booktracker.entity.Book;
-import com.booktracker.entity.Genre;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class ExternalBookService {
 
+    private static final long LOOKUP_TIMEOUT_MS = 5000;
+
+    private final IsbnEnrichmentService isbnEnrichmentService;
+
+    /**
+     * Книга по ISBN из внешнего источника (несохранённая сущность) или null, если книга не найдена
+     * или источник не ответил вовремя.
+     */
     public Book fetchBookByIsbn(String isbn) {
         log.info("Fetching book by ISBN: {}", isbn);
+        try {
+            return fetchBookByIsbnAsync(isbn).get(LOOKUP_TIMEOUT_MS, TimeUnit.MILLISECONDS).orElse(null);
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("ISBN lookup for {} failed: {}", isbn, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
 
-        // Заглушка для демонстрации
+    public CompletableFuture<Optional<Book>> fetchBookByIsbnAsync(String isbn) {
+        return isbnEnrichmentService.lookup(isbn).thenApply(metadata -> metadata.map(this::toBook));
+    }
+
+    private Book toBook(IsbnMetadata metadata) {
         Book book = new Book();
-        book.setTitle("Sample Book Title");
-        book.setIsbn(isbn);
-        book.setPublicationYear(2023);
-        book.setDescription("This is a sample book description from external API");
-        book.setCoverUrl("https://via.placeholder.com/150");
-
-        // Добавляем автора
-        Author author = new Author();
-        author.setName("Sample Author");
-        author.setBio("Author biography");
-
-        Set<Author> authors = new HashSet<>();
-        authors.add(author);
-        book.setAuthors(authors);
+        book.setTitle(metadata.title());
+        book.setIsbn(metadata.isbn());
+        book.setPublicationYear(metadata.year());
+        book.setPages(metadata.pages());
+        book.setDescription(metadata.description());
+        book.setCoverUrl(metadata.coverUrl());
 
+        // Несохранённые авторы равны по equals (id = null), поэтому множество по ссылкам
+        Set<Author> authors = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String name : metadata.authors()) {
+            Author author = new Author();
+            author.setName(name);
+            authors.add(author);
+        }
+        book.setAuthors(authors);
         return book;
     }
-}
\ No newline at end of file
+}
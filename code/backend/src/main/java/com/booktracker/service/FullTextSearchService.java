@@ -0,0 +1,130 @@
+package com.booktracker.service;
+
+import com.booktracker.entity.Author;
+import com.booktracker.entity.Book;
+import com.booktracker.event.BookSavedEvent;
+import com.booktracker.event.CatalogImportedEvent;
+import com.booktracker.repository.AuthorRepository;
+import com.booktracker.repository.BookRepository;
+import com.booktracker.search.InvertedIndex;
+import com.booktracker.search.SearchHits;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Полнотекстовый поиск по книгам (название, ISBN, авторы, описание) и авторам (имя, биография).
+ * Индексы строятся при старте и обновляются по событиям сохранения.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FullTextSearchService {
+
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    private static final Map<String, Float> BOOK_BOOSTS = Map.of(
+            "isbn", 5f, "title", 3f, "authors", 2f, "description", 1f);
+    private static final Map<String, Float> AUTHOR_BOOSTS = Map.of(
+            "name", 3f, "biography", 1f);
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+
+    private final InvertedIndex bookIndex = new InvertedIndex("title", "isbn", "authors", "description");
+    private final InvertedIndex authorIndex = new InvertedIndex("name", "biography");
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        Map<Long, String> authorNames = new HashMap<>();
+        for (Object[] row : bookRepository.findAuthorNamesByBook()) {
+            authorNames.merge((Long) row[0], (String) row[1], (a, b) -> a + " " + b);
+        }
+        for (Object[] row : bookRepository.findSearchableColumns()) {
+            Long id = (Long) row[0];
+            bookIndex.index(id, (String) row[1], normalizeIsbn((String) row[2]), authorNames.get(id), (String) row[3]);
+        }
+        for (Object[] row : authorRepository.findSearchableColumns()) {
+            authorIndex.index((Long) row[0], (String) row[1], (String) row[2]);
+        }
+        ready = true;
+        log.info("Search indexes built: {} books, {} authors in {} ms",
+                bookIndex.size(), authorIndex.size(), System.currentTimeMillis() - started);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public SearchHits searchBooks(String query, Pageable pageable) {
+        return bookIndex.search(normalizeQuery(query), BOOK_BOOSTS, offset(pageable), pageable.getPageSize());
+    }
+
+    public SearchHits searchAuthors(String query, Pageable pageable) {
+        return authorIndex.search(query, AUTHOR_BOOSTS, offset(pageable), pageable.getPageSize());
+    }
+
+    @EventListener
+    public void onBookSaved(BookSavedEvent event) {
+        Book book = event.book();
+        String authors = book.getAuthors() == null ? null : book.getAuthors().stream()
+                .map(Author::getName)
+                .collect(Collectors.joining(" "));
+        bookIndex.index(book.getId(), book.getTitle(), normalizeIsbn(book.getIsbn()), authors, book.getDescription());
+    }
+
+    // Импортированные книги и авторы индексируются выборками по id, без загрузки сущностей
+    @EventListener
+    public void onCatalogImported(CatalogImportedEvent event) {
+        forEachChunk(event.bookIds(), ids -> {
+            Map<Long, String> authorNames = new HashMap<>();
+            for (Object[] row : bookRepository.findAuthorNamesByBookIds(ids)) {
+                authorNames.merge((Long) row[0], (String) row[1], (a, b) -> a + " " + b);
+            }
+            for (Object[] row : bookRepository.findSearchableColumnsByIds(ids)) {
+                Long id = (Long) row[0];
+                bookIndex.index(id, (String) row[1], normalizeIsbn((String) row[2]), authorNames.get(id), (String) row[3]);
+            }
+        });
+        forEachChunk(event.authorIds(), ids -> {
+            for (Object[] row : authorRepository.findSearchableColumnsByIds(ids)) {
+                authorIndex.index((Long) row[0], (String) row[1], (String) row[2]);
+            }
+        });
+    }
+
+    // Ограничивает размер списка IN в запросах
+    static void forEachChunk(List<Long> ids, Consumer<List<Long>> action) {
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            action.accept(ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size())));
+        }
+    }
+
+    // Смещение за пределами int заведомо дальше последнего документа
+    private static int offset(Pageable pageable) {
+        return (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE);
+    }
+
+    // ISBN индексируется одним токеном без дефисов и пробелов
+    private static String normalizeIsbn(String isbn) {
+        return isbn == null ? null : isbn.replaceAll("[^0-9Xx]", "");
+    }
+
+    private static String normalizeQuery(String query) {
+        if (query != null && query.matches("[0-9Xx\\- ]{10,}")) {
+            return normalizeIsbn(query);
+        }
+        return query;
+    }
+}
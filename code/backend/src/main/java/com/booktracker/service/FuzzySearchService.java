@@ -0,0 +1,121 @@
+package com.booktracker.service;
+
+import com.booktracker.entity.Book;
+import com.booktracker.event.BookSavedEvent;
+import com.booktracker.event.CatalogImportedEvent;
+import com.booktracker.repository.AuthorRepository;
+import com.booktracker.repository.BookRepository;
+import com.booktracker.search.BkTree;
+import com.booktracker.search.SearchHits;
+import com.booktracker.search.Transliterator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Нечёткий поиск по названиям книг и именам авторов: слова приводятся к латинице
+ * (Толстой и Tolstoy дают один ключ) и ищутся в BK-дереве с ограниченным расстоянием Левенштейна.
+ * Задержка ограничена бюджетом посещённых узлов и числом кандидатов.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FuzzySearchService {
+
+    private static final int MAX_VISITS_PER_WORD = 20_000;
+    private static final int MAX_CANDIDATES = 1_000;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+
+    private final BkTree bookTree = new BkTree();
+    private final BkTree authorTree = new BkTree();
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        for (Object[] row : bookRepository.findSuggestionColumns()) {
+            addWords(bookTree, (Long) row[0], (String) row[1]);
+        }
+        for (Object[] row : authorRepository.findSuggestionColumns()) {
+            addWords(authorTree, (Long) row[0], (String) row[1]);
+        }
+        ready = true;
+        log.info("Fuzzy search trees built: {} book words, {} author words in {} ms",
+                bookTree.size(), authorTree.size(), System.currentTimeMillis() - started);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public SearchHits searchBooks(String query, Pageable pageable) {
+        return search(bookTree, query, pageable);
+    }
+
+    public SearchHits searchAuthors(String query, Pageable pageable) {
+        return search(authorTree, query, pageable);
+    }
+
+    // Старые слова при переименовании не удаляются: лишний кандидат безвреден и исчезнет после перезапуска
+    @EventListener
+    public void onBookSaved(BookSavedEvent event) {
+        Book book = event.book();
+        addWords(bookTree, book.getId(), book.getTitle());
+    }
+
+    @EventListener
+    public void onCatalogImported(CatalogImportedEvent event) {
+        FullTextSearchService.forEachChunk(event.bookIds(), ids -> {
+            for (Object[] row : bookRepository.findSearchableColumnsByIds(ids)) {
+                addWords(bookTree, (Long) row[0], (String) row[1]);
+            }
+        });
+        FullTextSearchService.forEachChunk(event.authorIds(), ids -> {
+            for (Object[] row : authorRepository.findSearchableColumnsByIds(ids)) {
+                addWords(authorTree, (Long) row[0], (String) row[1]);
+            }
+        });
+    }
+
+    private SearchHits search(BkTree tree, String query, Pageable pageable) {
+        List<String> words = Transliterator.words(query);
+        Map<Long, Double> scores = new HashMap<>();
+        for (String word : words) {
+            int maxDistance = word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+            Map<Long, Double> best = new HashMap<>();
+            for (BkTree.Match match : tree.search(word, maxDistance, MAX_VISITS_PER_WORD)) {
+                double score = 1.0 - (double) match.distance() / (word.length() + 1);
+                for (Long id : match.ids()) {
+                    if (best.size() >= MAX_CANDIDATES && !best.containsKey(id)) {
+                        break;
+                    }
+                    best.merge(id, score, Math::max);
+                }
+            }
+            best.forEach((id, score) -> scores.merge(id, score, Double::sum));
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        List<Long> ids = ranked.subList(from, to).stream().map(Map.Entry::getKey).toList();
+        return new SearchHits(ids, ranked.size());
+    }
+
+    private static void addWords(BkTree tree, Long id, String text) {
+        if (id == null) {
+            return;
+        }
+        for (String word : new HashSet<>(Transliterator.words(text))) {
+            tree.add(word, id);
+        }
+    }
+}
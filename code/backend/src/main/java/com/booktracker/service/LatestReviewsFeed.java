@@ -0,0 +1,115 @@
+package com.booktracker.service;
+
+import com.booktracker.dto.ReviewDTO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Последние одобренные отзывы в памяти для первых страниц ленты /latest.
+ * <p>
+ * Хранится неизменяемый снимок: до capacity самых новых по дате создания отзывов и общее число одобренных.
+ * Одобренный отзыв вставляется, только если он новее последнего в снимке, поэтому снимок всегда совпадает
+ * с началом ленты в БД, даже когда старые отзывы одобряют по одному. Загрузка из БД и добавление меняют
+ * снимок одним CAS: загрузка, во время которой был одобрен отзыв, не затирает его устаревшими данными.
+ * Массовая модерация могла отклонить показанные отзывы, после неё снимок загружается заново.
+ */
+final class LatestReviewsFeed {
+
+    static final Comparator<ReviewDTO> NEWEST_FIRST = Comparator
+            .comparing(ReviewDTO::getCreatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(ReviewDTO::getId, Comparator.nullsLast(Comparator.<Long>reverseOrder()));
+
+    private final int capacity;
+    private final AtomicReference<State> state = new AtomicReference<>(new State(List.of(), 0, 0, false));
+
+    LatestReviewsFeed(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Номер изменения снимка: снимается до чтения из БД и передаётся в {@link #reset}.
+     */
+    long generation() {
+        return state.get().generation();
+    }
+
+    /**
+     * Заменяет содержимое целиком, если с момента {@link #generation()} снимок не менялся.
+     *
+     * @param latest     последние одобренные отзывы от новых к старым, не больше capacity
+     * @param count      общее число одобренных отзывов
+     * @param generation номер снимка до чтения из БД
+     * @return false, если за время чтения были одобрены отзывы и данные нужно прочитать заново
+     */
+    boolean reset(List<ReviewDTO> latest, long count, long generation) {
+        State current = state.get();
+        if (current.generation() != generation) {
+            return false;
+        }
+        List<ReviewDTO> sorted = new ArrayList<>(latest.subList(0, Math.min(latest.size(), capacity)));
+        sorted.sort(NEWEST_FIRST);
+        return state.compareAndSet(current,
+                new State(Collections.unmodifiableList(sorted), count, generation + 1, true));
+    }
+
+    // Лента не загружена: запросы идут в БД, пока следующая загрузка не удастся
+    void invalidate() {
+        State current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current,
+                new State(List.of(), current.approvedCount(), current.generation() + 1, false)));
+    }
+
+    void add(ReviewDTO review) {
+        State current;
+        State next;
+        do {
+            current = state.get();
+            next = current.with(review, capacity);
+        } while (!state.compareAndSet(current, next));
+    }
+
+    long approvedCount() {
+        return state.get().approvedCount();
+    }
+
+    /**
+     * @return отсортированное начало ленты или null, если лента ещё не загружена
+     */
+    List<ReviewDTO> head() {
+        State current = state.get();
+        return current.ready() ? current.latest() : null;
+    }
+
+    // Все одобренные отзывы в памяти: за концом head() данных нет
+    boolean isComplete(List<ReviewDTO> head) {
+        return head.size() >= approvedCount();
+    }
+
+    private record State(List<ReviewDTO> latest, long approvedCount, long generation, boolean ready) {
+
+        State with(ReviewDTO review, int capacity) {
+            List<ReviewDTO> updated = latest;
+            boolean present = latest.stream().anyMatch(existing -> existing.getId().equals(review.getId()));
+            // Отзыв старше последнего в полном снимке в начало ленты не попадает
+            boolean fits = latest.size() < capacity
+                    || NEWEST_FIRST.compare(review, latest.get(latest.size() - 1)) < 0;
+            if (!present && fits) {
+                List<ReviewDTO> copy = new ArrayList<>(latest);
+                int index = Collections.binarySearch(copy, review, NEWEST_FIRST);
+                copy.add(index < 0 ? -index - 1 : index, review);
+                if (copy.size() > capacity) {
+                    copy.remove(copy.size() - 1);
+                }
+                updated = Collections.unmodifiableList(copy);
+            }
+            return new State(updated, present ? approvedCount : approvedCount + 1, generation + 1, ready);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.booktracker.service;
+
+import com.booktracker.dto.ResourceVersion;
+import com.booktracker.event.BookCoverStoredEvent;
+import com.booktracker.event.BookRatingChangedEvent;
+import com.booktracker.event.BookSavedEvent;
+import com.booktracker.event.CatalogImportedEvent;
+import com.booktracker.repository.AuthorRepository;
+import com.booktracker.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Дешёвые проверки версий для условных GET. Версия одной книги или автора - запрос скалярных колонок
+ * по первичному ключу. Версии страниц - счётчики в памяти без SQL: их увеличивают события всех путей
+ * записи каталога после коммита. В ETag входит момент запуска, поэтому после перезапуска
+ * счётчик с нуля не совпадёт со старым значением.
+ */
+@Service
+@RequiredArgsConstructor
+public class ResourceVersionService {
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong bookPagesVersion = new AtomicLong();
+    private final AtomicLong authorPagesVersion = new AtomicLong();
+    private volatile long bookPagesModified = epoch;
+    private volatile long authorPagesModified = epoch;
+
+    // Сильный ETag: карточка книги включает авторов и жанры, поэтому учитываются и их версии
+    public Optional<ResourceVersion> getBookVersion(Long id) {
+        return first(bookRepository.findVersionById(id)).map(row -> new ResourceVersion(
+                "\"b" + id + "-" + row[0] + "-" + row[2] + "-" + row[4] + "\"",
+                latest((LocalDateTime) row[1], (LocalDateTime) row[3])));
+    }
+
+    public Optional<ResourceVersion> getAuthorVersion(Long id) {
+        return first(authorRepository.findVersionById(id)).map(row -> new ResourceVersion(
+                "\"a" + id + "-" + row[0] + "\"",
+                toMillis((LocalDateTime) row[1])));
+    }
+
+    // Слабый ETag страниц книг: меняется при любом изменении книг, авторов или жанров
+    public ResourceVersion getBookPagesVersion() {
+        return new ResourceVersion("W/\"books-" + epoch + "." + bookPagesVersion.get() + "\"", bookPagesModified);
+    }
+
+    public ResourceVersion getAuthorPagesVersion() {
+        return new ResourceVersion("W/\"authors-" + epoch + "." + authorPagesVersion.get() + "\"", authorPagesModified);
+    }
+
+    // Счётчики увеличиваются после коммита: иначе клиент мог бы закэшировать старые данные под новым ETag
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        bumpBookPages();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookRatingChanged(BookRatingChangedEvent event) {
+        bumpBookPages();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookCoverStored(BookCoverStoredEvent event) {
+        bumpBookPages();
+    }
+
+    // Импорт создаёт книги, авторов и жанры
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        bumpBookPages();
+        if (!event.authorIds().isEmpty()) {
+            authorPagesVersion.incrementAndGet();
+            authorPagesModified = System.currentTimeMillis();
+        }
+    }
+
+    private void bumpBookPages() {
+        bookPagesVersion.incrementAndGet();
+        bookPagesModified = System.currentTimeMillis();
+    }
+
+    private static Optional<Object[]> first(List<Object[]> rows) {
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    private static long latest(LocalDateTime first, LocalDateTime second) {
+        return Math.max(toMillis(first), toMillis(second));
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? -1 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,192 @@
+package com.booktracker.service;
+
+import com.booktracker.dto.ReviewModerationRequest;
+import com.booktracker.dto.ReviewModerationResultDTO;
+import com.booktracker.entity.Review;
+import com.booktracker.entity.ReviewStatus;
+import com.booktracker.event.ReviewsModeratedEvent;
+import com.booktracker.rating.RatingAggregator;
+import com.booktracker.repository.ReviewRatingRow;
+import com.booktracker.repository.ReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.booktracker.repository.ReviewSpecifications.byUser;
+import static com.booktracker.repository.ReviewSpecifications.createdBetween;
+import static com.booktracker.repository.ReviewSpecifications.forBook;
+import static com.booktracker.repository.ReviewSpecifications.hasStatusOtherThan;
+import static com.booktracker.repository.ReviewSpecifications.idIn;
+
+/**
+ * Массовое одобрение и отклонение отзывов. Отзывы обрабатываются пакетами по id: на пакет один SELECT
+ * проекции без текста, по UPDATE на каждый прочитанный статус и одна транзакция. Рейтинги и кэши книг
+ * пакета обновляются один раз после коммита, а не на каждый отзыв.
+ * <p>
+ * UPDATE проверяет статус, прочитанный вне транзакции: если отзыв изменили в промежутке (например,
+ * одобрили по одному), пакет откатывается и читается заново. Последняя попытка обновляет отзывы
+ * по одному и считает разницу рейтингов только по реально обновлённым.
+ */
+@Slf4j
+@Service
+public class ReviewModerationService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int STARS = 5;
+
+    private final ReviewRepository reviewRepository;
+    private final RatingAggregator ratingAggregator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReviewModerationService(ReviewRepository reviewRepository,
+                                   RatingAggregator ratingAggregator,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager) {
+        this.reviewRepository = reviewRepository;
+        this.ratingAggregator = ratingAggregator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ReviewModerationResultDTO moderate(ReviewModerationRequest request) {
+        ReviewStatus target = parseAction(request.getAction());
+        boolean hasIds = request.getReviewIds() != null && !request.getReviewIds().isEmpty();
+        if (!hasIds && request.getBookId() == null && request.getUserId() == null
+                && request.getCreatedFrom() == null && request.getCreatedTo() == null) {
+            throw new IllegalArgumentException("Specify review ids or at least one filter");
+        }
+        Specification<Review> spec = Specification.where(hasStatusOtherThan(target))
+                .and(idIn(request.getReviewIds()))
+                .and(forBook(request.getBookId()))
+                .and(byUser(request.getUserId()))
+                .and(createdBetween(request.getCreatedFrom(), request.getCreatedTo()));
+
+        ReviewModerationResultDTO result = new ReviewModerationResultDTO();
+        result.setAction(target == ReviewStatus.APPROVED ? "APPROVE" : "REJECT");
+        long afterId = 0;
+        for (int index = 0; ; index++) {
+            List<ReviewRatingRow> rows = reviewRepository.findRatingRows(spec, afterId, CHUNK_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            Long lastId = rows.get(rows.size() - 1).id();
+            ReviewModerationResultDTO.Chunk chunk = moderateChunk(index, spec, rows, target);
+            result.getChunks().add(chunk);
+            result.setMatched(result.getMatched() + chunk.matched());
+            result.setUpdated(result.getUpdated() + chunk.updated());
+            if (rows.size() < CHUNK_SIZE) {
+                break;
+            }
+            afterId = lastId;
+        }
+        return result;
+    }
+
+    private ReviewModerationResultDTO.Chunk moderateChunk(int index, Specification<Review> spec,
+                                                          List<ReviewRatingRow> rows, ReviewStatus target) {
+        Long firstId = rows.get(0).id();
+        Long lastId = rows.get(rows.size() - 1).id();
+        for (int attempt = 1; ; attempt++) {
+            boolean lastAttempt = attempt == MAX_ATTEMPTS;
+            List<ReviewRatingRow> candidates = rows;
+            ReviewModerationResultDTO.Chunk chunk = transactionTemplate.execute(status -> {
+                List<ReviewRatingRow> updatedRows = lastAttempt
+                        ? updateOneByOne(candidates, target)
+                        : updateByReadStatus(candidates, target);
+                if (updatedRows == null) {
+                    // Часть отзывов изменили параллельно: разницы рейтингов по выборке были бы неверны
+                    status.setRollbackOnly();
+                    return null;
+                }
+                if (updatedRows.size() != candidates.size()) {
+                    log.info("Review moderation chunk {}: {} of {} reviews changed concurrently and were skipped",
+                            index, candidates.size() - updatedRows.size(), candidates.size());
+                }
+                List<Long> ids = candidates.stream().map(ReviewRatingRow::id).toList();
+                Map<Long, long[]> deltas = ratingDeltas(candidates, updatedRows, target);
+                deltas.forEach(ratingAggregator::recordHistogramChange);
+                eventPublisher.publishEvent(new ReviewsModeratedEvent(target, ids, deltas.keySet()));
+                return new ReviewModerationResultDTO.Chunk(index, firstId, lastId, ids.size(), updatedRows.size(),
+                        deltas.size());
+            });
+            if (chunk != null) {
+                return chunk;
+            }
+            rows = reviewRepository.findRatingRows(spec.and(idIn(rows.stream().map(ReviewRatingRow::id).toList())),
+                    0, CHUNK_SIZE);
+            if (rows.isEmpty()) {
+                return new ReviewModerationResultDTO.Chunk(index, firstId, lastId, 0, 0, 0);
+            }
+        }
+    }
+
+    // Один UPDATE на каждый прочитанный статус; null - если хотя бы один отзыв уже изменён
+    private List<ReviewRatingRow> updateByReadStatus(List<ReviewRatingRow> rows, ReviewStatus target) {
+        Map<ReviewStatus, List<Long>> idsByStatus = rows.stream().collect(Collectors.groupingBy(
+                ReviewRatingRow::status, () -> new EnumMap<>(ReviewStatus.class),
+                Collectors.mapping(ReviewRatingRow::id, Collectors.toList())));
+        for (Map.Entry<ReviewStatus, List<Long>> group : idsByStatus.entrySet()) {
+            if (reviewRepository.updateStatus(group.getValue(), group.getKey(), target) != group.getValue().size()) {
+                return null;
+            }
+        }
+        return rows;
+    }
+
+    // Точный, но медленный путь для последней попытки: возвращает только обновлённые отзывы
+    private List<ReviewRatingRow> updateOneByOne(List<ReviewRatingRow> rows, ReviewStatus target) {
+        List<ReviewRatingRow> updated = new ArrayList<>(rows.size());
+        for (ReviewRatingRow row : rows) {
+            if (reviewRepository.updateStatus(List.of(row.id()), row.status(), target) == 1) {
+                updated.add(row);
+            }
+        }
+        return updated;
+    }
+
+    // Одобрение добавляет оценку в рейтинг книги, отклонение ранее одобренного отзыва - убирает.
+    // Ключи - все книги пакета: их кэши нужно сбросить, даже если рейтинг не изменился
+    private static Map<Long, long[]> ratingDeltas(List<ReviewRatingRow> rows, List<ReviewRatingRow> updatedRows,
+                                                  ReviewStatus target) {
+        Map<Long, long[]> deltas = new HashMap<>();
+        for (ReviewRatingRow row : rows) {
+            deltas.computeIfAbsent(row.bookId(), id -> new long[STARS]);
+        }
+        for (ReviewRatingRow row : updatedRows) {
+            long[] delta = deltas.get(row.bookId());
+            if (row.rating() == null || row.rating() < 1 || row.rating() > STARS) {
+                continue;
+            }
+            if (target == ReviewStatus.APPROVED) {
+                delta[row.rating() - 1]++;
+            } else if (row.status() == ReviewStatus.APPROVED) {
+                delta[row.rating() - 1]--;
+            }
+        }
+        return deltas;
+    }
+
+    private static ReviewStatus parseAction(String action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action is required: APPROVE or REJECT");
+        }
+        return switch (action.toUpperCase(Locale.ROOT)) {
+            case "APPROVE" -> ReviewStatus.APPROVED;
+            case "REJECT" -> ReviewStatus.REJECTED;
+            default -> throw new IllegalArgumentException("Unknown moderation action: " + action);
+        };
+    }
+}
@@ -1,46 +1,110 @@
 package com.booktracker.service;
 
+import com.booktracker.dto.CursorPage;
 import com.booktracker.dto.ReviewDTO;
 import com.booktracker.entity.Review;
+import com.booktracker.entity.ReviewStatus;
 import com.booktracker.entity.User;
+import com.booktracker.event.ReviewApprovedEvent;
+import com.booktracker.event.ReviewsModeratedEvent;
+import com.booktracker.mapper.ReviewMapper;
+import com.booktracker.rating.RatingAggregator;
 import com.booktracker.repository.BookRepository;
+import com.booktracker.repository.KeysetCursor;
 import com.booktracker.repository.ReviewRepository;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 @RequiredArgsConstructor
 public class ReviewService {
 
+    private static final String CREATED_SORT = "created_at_desc";
+    private static final int LATEST_FEED_CAPACITY = 256;
+    private static final int LATEST_FEED_SEED_ATTEMPTS = 3;
+    private static final long LATEST_FEED_RESEED_DELAY_MS = 30_000;
+
     private final ReviewRepository reviewRepository;
     private final BookRepository bookRepository;
     private final UserService userService;
-    private final ModelMapper modelMapper;
+    private final RatingAggregator ratingAggregator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LatestReviewsFeed latestFeed = new LatestReviewsFeed(LATEST_FEED_CAPACITY);
+    // Повторная загрузка выключенной ленты: одна за раз и не чаще раза в LATEST_FEED_RESEED_DELAY_MS
+    private final AtomicBoolean reseeding = new AtomicBoolean();
+    private volatile long nextReseedAt;
 
     public Page<ReviewDTO> getBookReviews(Long bookId, Pageable pageable) {
-        return reviewRepository.findByBookId(bookId, pageable)
-                .map(this::convertToDTO);
+        // Публичный список книги: только одобренные отзывы
+        return reviewRepository.findByBookIdAndStatus(bookId, ReviewStatus.APPROVED, pageable)
+                .map(ReviewMapper::toDTO);
     }
 
     public Page<ReviewDTO> getUserReviews(Long userId, Pageable pageable) {
         return reviewRepository.findByUserId(userId, pageable)
-                .map(this::convertToDTO);
+                .map(ReviewMapper::toDTO);
     }
 
+    // Первые страницы отдаются из памяти без запроса к БД
     public Page<ReviewDTO> getLatestReviews(Pageable pageable) {
+        List<ReviewDTO> head = latestHead();
+        if (head != null) {
+            long end = pageable.getOffset() + pageable.getPageSize();
+            if (end <= head.size() || latestFeed.isComplete(head)) {
+                int from = (int) Math.min(pageable.getOffset(), head.size());
+                int to = (int) Math.min(end, head.size());
+                return new PageImpl<>(new ArrayList<>(head.subList(from, to)), pageable, latestFeed.approvedCount());
+            }
+        }
         return reviewRepository.findLatestApprovedReviews(pageable)
-                .map(this::convertToDTO);
+                .map(ReviewMapper::toDTO);
+    }
+
+    // Keyset-пагинация отзывов книги по (created_at, id) от новых к старым
+    public CursorPage<ReviewDTO> scrollBookReviews(Long bookId, String cursor, int size) {
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor, CREATED_SORT);
+        List<Review> rows = after == null
+                ? reviewRepository.findBookReviewsFirst(bookId, ReviewStatus.APPROVED, Limit.of(size + 1))
+                : reviewRepository.findBookReviewsAfter(bookId, ReviewStatus.APPROVED, (LocalDateTime) after.key(), after.id(), Limit.of(size + 1));
+        return toCursorPage(rows, size);
+    }
+
+    public CursorPage<ReviewDTO> scrollLatestReviews(String cursor, int size) {
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor, CREATED_SORT);
+        List<ReviewDTO> head = latestHead();
+        if (head != null) {
+            int from = after == null ? 0 : positionAfter(head, (LocalDateTime) after.key(), after.id());
+            if (from + size + 1 <= head.size() || latestFeed.isComplete(head)) {
+                return toDTOCursorPage(head.subList(Math.min(from, head.size()), Math.min(from + size + 1, head.size())), size);
+            }
+        }
+        List<Review> rows = after == null
+                ? reviewRepository.findLatestApprovedFirst(Limit.of(size + 1))
+                : reviewRepository.findLatestApprovedAfter((LocalDateTime) after.key(), after.id(), Limit.of(size + 1));
+        return toCursorPage(rows, size);
     }
 
     public ReviewDTO addReview(ReviewDTO reviewDTO, Long bookId) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userService.findByEmail(email);
 
-        Review review = modelMapper.map(reviewDTO, Review.class);
+        Review review = ReviewMapper.toEntity(reviewDTO);
         review.setUser(user);
         review.setBook(bookRepository.findById(bookId)
                 .orElseThrow(() -> new RuntimeException("Book not found")));
@@ -50,20 +114,89 @@ public class ReviewService {
         }
 
         Review savedReview = reviewRepository.save(review);
-        return convertToDTO(savedReview);
+        return ReviewMapper.toDTO(savedReview);
     }
 
+    @Transactional
     public void approveReview(Long reviewId) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
-        review.approve();
-        reviewRepository.save(review);
+        if (review.isApproved()) {
+            return;
+        }
+        // UPDATE с условием на прочитанный статус, как в массовой модерации: если отзыв успели одобрить
+        // параллельно, строка не меняется и оценка в рейтинг второй раз не попадает
+        if (reviewRepository.updateStatus(List.of(reviewId), review.getStatus(), ReviewStatus.APPROVED) != 1) {
+            return;
+        }
+        ratingAggregator.recordRatingChange(review.getBook().getId(), null, review.getRating());
+        eventPublisher.publishEvent(new ReviewApprovedEvent(ReviewMapper.toDTO(review)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedLatestReviews() {
+        // Одобрение во время чтения меняет номер снимка: читаем заново, а не затираем его старыми данными
+        for (int attempt = 0; attempt < LATEST_FEED_SEED_ATTEMPTS; attempt++) {
+            long generation = latestFeed.generation();
+            List<ReviewDTO> latest = reviewRepository.findLatestApprovedWithUser(Limit.of(LATEST_FEED_CAPACITY)).stream()
+                    .map(ReviewMapper::toDTO)
+                    .toList();
+            if (latestFeed.reset(latest, reviewRepository.countByStatus(ReviewStatus.APPROVED), generation)) {
+                return;
+            }
+        }
+        // Одобрения идут непрерывно: лента отдаётся из БД, пока её не загрузит следующее чтение
+        latestFeed.invalidate();
+        nextReseedAt = System.currentTimeMillis() + LATEST_FEED_RESEED_DELAY_MS;
+    }
+
+    // Лента выключена после неудачной загрузки: её снова загружает одно из следующих чтений,
+    // остальные в это время идут в БД
+    private List<ReviewDTO> latestHead() {
+        List<ReviewDTO> head = latestFeed.head();
+        if (head != null || System.currentTimeMillis() < nextReseedAt || !reseeding.compareAndSet(false, true)) {
+            return head;
+        }
+        try {
+            seedLatestReviews();
+        } finally {
+            reseeding.set(false);
+        }
+        return latestFeed.head();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewApproved(ReviewApprovedEvent event) {
+        latestFeed.add(event.review());
+    }
+
+    // Пакет модерации мог одобрить старые отзывы или отклонить уже показанные - лента загружается заново
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewsModerated(ReviewsModeratedEvent event) {
+        seedLatestReviews();
+    }
+
+    private CursorPage<ReviewDTO> toCursorPage(List<Review> rows, int size) {
+        return toDTOCursorPage(rows.stream().map(ReviewMapper::toDTO).toList(), size);
+    }
+
+    private CursorPage<ReviewDTO> toDTOCursorPage(List<ReviewDTO> rows, int size) {
+        boolean hasNext = rows.size() > size;
+        List<ReviewDTO> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : new ArrayList<>(rows);
+        String next = null;
+        if (hasNext) {
+            ReviewDTO last = content.get(content.size() - 1);
+            next = new KeysetCursor(CREATED_SORT, last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(content, next, hasNext, size);
     }
 
-    private ReviewDTO convertToDTO(Review review) {
-        ReviewDTO dto = modelMapper.map(review, ReviewDTO.class);
-        dto.setUserName(review.getUser().getUsername());
-        dto.setBookId(review.getBook().getId());
-        return dto;
+    // Индекс первого отзыва ленты после курсора (createdAt, id)
+    private static int positionAfter(List<ReviewDTO> feed, LocalDateTime createdAt, Long id) {
+        ReviewDTO probe = new ReviewDTO();
+        probe.setCreatedAt(createdAt);
+        probe.setId(id);
+        int index = Collections.binarySearch(feed, probe, LatestReviewsFeed.NEWEST_FIRST);
+        return index >= 0 ? index + 1 : -index - 1;
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.booktracker.service;
+
+import com.booktracker.dto.SuggestionDTO;
+import com.booktracker.event.BookSavedEvent;
+import com.booktracker.event.CatalogImportedEvent;
+import com.booktracker.repository.AuthorRepository;
+import com.booktracker.repository.BookRepository;
+import com.booktracker.search.Suggestion;
+import com.booktracker.search.SuggestionTrie;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Подсказки для строки поиска. Дерево перестраивается в фоновом потоке из репозиториев
+ * и подменяется атомарно; запросы всегда читают последнюю готовую версию.
+ */
+@Slf4j
+@Service
+public class SuggestionService {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final long refreshSeconds;
+
+    private final AtomicReference<SuggestionTrie> trie = new AtomicReference<>(SuggestionTrie.empty());
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggestion-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SuggestionService(BookRepository bookRepository,
+                             AuthorRepository authorRepository,
+                             @Value("${search.suggest.refresh-seconds:60}") long refreshSeconds) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.refreshSeconds = refreshSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::rebuild);
+        // Изменения копятся и применяются следующей фоновой пересборкой
+        executor.scheduleWithFixedDelay(() -> {
+            if (dirty.compareAndSet(true, false)) {
+                rebuild();
+            }
+        }, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        int bounded = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        return trie.get().suggest(query, bounded).stream()
+                .map(s -> new SuggestionDTO(s.type(), s.id(), s.text()))
+                .toList();
+    }
+
+    @EventListener
+    public void onBookSaved(BookSavedEvent event) {
+        dirty.set(true);
+    }
+
+    @EventListener
+    public void onCatalogImported(CatalogImportedEvent event) {
+        dirty.set(true);
+    }
+
+    void rebuild() {
+        try {
+            long started = System.currentTimeMillis();
+            List<Suggestion> suggestions = new ArrayList<>();
+            for (Object[] row : bookRepository.findSuggestionColumns()) {
+                Integer ratings = (Integer) row[2];
+                suggestions.add(new Suggestion("book", (Long) row[0], (String) row[1], ratings == null ? 0 : ratings));
+            }
+            for (Object[] row : authorRepository.findSuggestionColumns()) {
+                suggestions.add(new Suggestion("author", (Long) row[0], (String) row[1], (Long) row[2]));
+            }
+            trie.set(SuggestionTrie.build(suggestions, MAX_SUGGESTIONS));
+            log.info("Suggestion trie rebuilt: {} entries in {} ms",
+                    suggestions.size(), System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            log.error("Suggestion trie rebuild failed, keeping previous version", e);
+        }
+    }
+}
@@ -2,20 +2,33 @@
 package com.booktracker.service;
 
 import com.booktracker.entity.User;
+import com.booktracker.entity.UserRole;
 import com.booktracker.repository.UserRepository;
+import com.booktracker.security.PasswordHasher;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.List;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+
+    // Email через запятую: эти пользователи получают роль ADMIN при запуске
+    @Value("${security.admin-emails:}")
+    private String adminEmails;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -25,19 +38,48 @@ public class UserService implements UserDetailsService {
         return org.springframework.security.core.userdetails.User
                 .withUsername(user.getEmail())
                 .password(user.getPassword())
-                .authorities("USER")
+                .roles(user.getRole() == null ? UserRole.USER.name() : user.getRole().name())
                 .build();
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void promoteConfiguredAdmins() {
+        List<String> emails = Arrays.stream(adminEmails.split(","))
+                .map(String::trim)
+                .filter(email -> !email.isEmpty())
+                .toList();
+        if (!emails.isEmpty()) {
+            log.info("Granted ADMIN role to {} configured users", userRepository.updateRoleByEmails(emails, UserRole.ADMIN));
+        }
+    }
+
     public User registerUser(User user) {
         if (userRepository.existsByEmail(user.getEmail())) {
             throw new RuntimeException("Email already exists");
         }
 
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHasher.encode(user.getPassword()));
         return userRepository.save(user);
     }
 
+    /**
+     * Пересчитывает хэш после успешного входа, если он создан с устаревшей стоимостью BCrypt.
+     * Выполняется в фоне: ответ на вход не ждёт второго хэширования.
+     */
+    public void upgradePasswordHash(User user, String rawPassword) {
+        String oldHash = user.getPassword();
+        if (!passwordHasher.needsRehash(oldHash)) {
+            return;
+        }
+        passwordHasher.encodeInBackground(rawPassword).whenComplete((newHash, error) -> {
+            if (error != null) {
+                log.debug("Password rehash skipped for user {}: {}", user.getId(), error.getMessage());
+            } else if (userRepository.updatePasswordHash(user.getId(), oldHash, newHash) > 0) {
+                log.info("Password hash upgraded for user {}", user.getId());
+            }
+        });
+    }
+
     public User findByEmail(String email) {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -0,0 +1,132 @@
+package com.booktracker.service;
+
+import com.booktracker.cache.LocalCache;
+import com.booktracker.dto.BookDTO;
+import com.booktracker.entity.Author;
+import com.booktracker.entity.Book;
+import com.booktracker.entity.Genre;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Число SQL-запросов страницы книг не зависит от её размера: авторы и жанры загружаются
+ * пакетно, а не лениво на каждую строку.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(BookService.class)
+class BookServiceQueryCountTest {
+
+    private static final int BOOKS = 30;
+    private static final int YEAR = 2001;
+    private static final String GENRE = "Fantasy";
+
+    // Страница, count и два пакетных запроса связей
+    private static final long MAX_STATEMENTS = 4;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private FullTextSearchService fullTextSearchService;
+
+    @MockBean
+    private FuzzySearchService fuzzySearchService;
+
+    @MockBean
+    private LocalCache<Long, BookDTO> bookDetailCache;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Genre genre = new Genre();
+        genre.setName(GENRE);
+        entityManager.persist(genre);
+        for (int i = 0; i < BOOKS; i++) {
+            Author author = new Author();
+            author.setName("Author " + i);
+            entityManager.persist(author);
+
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setYear(YEAR);
+            book.getAuthors().add(author);
+            book.getGenres().add(genre);
+            entityManager.persist(book);
+        }
+        // Иначе книги со связями берутся из контекста персистентности и ленивые загрузки не видны
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getAllBooksRunsConstantNumberOfQueries() {
+        assertConstantQueryCount(pageable -> bookService.getAllBooks(pageable));
+    }
+
+    @Test
+    void searchBooksRunsConstantNumberOfQueries() {
+        assertConstantQueryCount(pageable -> bookService.searchBooks("book", pageable));
+    }
+
+    @Test
+    void getBooksByGenreRunsConstantNumberOfQueries() {
+        assertConstantQueryCount(pageable -> bookService.getBooksByGenre(GENRE, pageable));
+    }
+
+    @Test
+    void getLatestBooksRunsConstantNumberOfQueries() {
+        assertConstantQueryCount(pageable -> bookService.getLatestBooks(pageable));
+    }
+
+    @Test
+    void getBooksByYearRunsConstantNumberOfQueries() {
+        assertConstantQueryCount(pageable -> bookService.getBooksByYear(YEAR, pageable));
+    }
+
+    // Обе страницы неполные по отношению к каталогу, поэтому count выполняется в обоих случаях
+    private void assertConstantQueryCount(Function<Pageable, Page<BookDTO>> query) {
+        long small = countStatements(query, PageRequest.of(0, 5));
+        long large = countStatements(query, PageRequest.of(0, 20));
+
+        assertThat(small).isEqualTo(large);
+        assertThat(large).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    private long countStatements(Function<Pageable, Page<BookDTO>> query, Pageable pageable) {
+        entityManager.clear();
+        statistics.clear();
+
+        Page<BookDTO> page = query.apply(pageable);
+
+        assertThat(page.getContent()).hasSize(pageable.getPageSize());
+        assertThat(page.getContent()).allSatisfy(book -> {
+            assertThat(book.getAuthors()).hasSize(1);
+            assertThat(book.getGenres()).hasSize(1);
+        });
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -4,12 +4,17 @@ export class BookCard {
     }
 
     render() {
-        const coverUrl = this.book.coverUrl || 'https://images.pexels.com/photos/1926988/pexels-photo-1926988.jpeg';
-        const authors = this.book.authors ? this.book.authors.map(a => a.name).join(', ') : 'Unknown Author';
+        // Локальная миниатюра, если обложка уже обработана сервером; заглушка видна, пока она грузится
+        const coverUrl = this.book.coverThumbnailUrl || this.book.coverUrl || 'https://images.pexels.com/photos/1926988/pexels-photo-1926988.jpeg';
+        const placeholderStyle = this.book.coverPlaceholder
+            ? `style="background: url('${this.book.coverPlaceholder}') center / cover no-repeat"` : '';
+        // Карточки списков приходят с authorNames, полные книги - с authors
+        const authorNames = this.book.authorNames || (this.book.authors ? this.book.authors.map(a => a.name) : []);
+        const authors = authorNames.length > 0 ? authorNames.join(', ') : 'Unknown Author';
 
         return `
             <div class="book-card" onclick="app.showBookDetail(${this.book.id})">
-                <img src="${coverUrl}" alt="${this.book.title}" class="book-cover" 
+                <img src="${coverUrl}" alt="${this.book.title}" class="book-cover" loading="lazy" decoding="async" ${placeholderStyle}
                      onerror="this.src='https://images.pexels.com/photos/1926988/pexels-photo-1926988.jpeg'">
                 <h3 class="book-title">${this.book.title}</h3>
                 <p class="book-author">by ${authors}</p>
@@ -19,7 +19,7 @@ export class Header {
                         <div class="nav-right">
                             ${this.isLoggedIn ? `
                                 <div class="user-avatar" onclick="app.toggleUserMenu()">
-                                    <img src="https://ui-avatars.com/api/?name=${encodeURIComponent(this.user.displayName || 'User')}&background=random" 
+                                    <img src="${this.user.avatarUrl || `/api/avatars?name=${encodeURIComponent(this.user.displayName || 'User')}`}" 
                                          alt="${this.user.displayName}" class="avatar-img">
                                     <div class="user-menu" id="userMenu">
                                         <a href="#/profile">Profile</a>
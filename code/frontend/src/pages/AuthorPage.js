@@ -76,8 +76,9 @@ export class AuthorPage {
             console.log('Author data loaded:', this.author);
 
             // Загружаем ВСЕ книги
-            const allBooksResult = await apiService.getBooks(0, 200);
-            this.allBooks = allBooksResult.content || [];
+            // Сервер отдаёт не больше 100 книг на страницу: первые 200 книг - двумя запросами
+            const pages = await Promise.all([apiService.getBooks(0, 100), apiService.getBooks(1, 100)]);
+            this.allBooks = pages.flatMap(result => result.content || []);
             console.log('All books loaded:', this.allBooks.length);
 
             // Фильтруем книги по автору на фронтенде
@@ -111,7 +112,7 @@ export class AuthorPage {
                 ${this.books.map(book => `
                     <div class="book-item" onclick="window.authorPage.navigateToBook(${book.id})">
                         <div class="book-content">
-                            <img src="${book.coverUrl || this.getDefaultBookCover()}" 
+                            <img src="${book.coverThumbnailUrl || book.coverUrl || this.getDefaultBookCover()}" 
                                  alt="${book.title}"
                                  class="book-cover"
                                  onerror="this.src='${this.getDefaultBookCover()}'">
@@ -5,6 +5,7 @@ export class BookPage {
         this.bookId = null;
         this.book = null;
         this.reviews = [];
+        this.summary = null;
         this.isLoading = true;
         this.isLoggedIn = !!localStorage.getItem('token');
     }
@@ -40,8 +41,9 @@ export class BookPage {
 
                 <div class="book-header">
                     <div class="book-image">
-                        <img src="${this.book.coverUrl || this.getDefaultBookCover()}" 
+                        <img src="${this.book.coverThumbnailUrl || this.book.coverUrl || this.getDefaultBookCover()}" 
                              alt="${this.book.title}"
+                             ${this.book.coverPlaceholder ? `style="background: url('${this.book.coverPlaceholder}') center / cover no-repeat"` : ''}
                              onerror="this.src='${this.getDefaultBookCover()}'">
                     </div>
                     <div class="book-info">
@@ -78,6 +80,7 @@ export class BookPage {
 
                     <div class="book-reviews-section">
                         <h2>Reviews</h2>
+                        ${this.summary ? this.renderHistogram() : ''}
                         ${this.reviews.length > 0 ? this.renderReviews() : this.renderNoReviews()}
                     </div>
                 </div>
@@ -93,13 +96,13 @@ export class BookPage {
             this.book = await apiService.getBookById(this.bookId);
             console.log('Book data loaded:', this.book);
 
-            // Загружаем отзывы
+            // Сводка: гистограмма оценок и последние отзывы одним запросом
             try {
-                const reviewsResult = await apiService.getBookReviews(this.bookId, 0, 20);
-                this.reviews = reviewsResult.content || [];
-                console.log('Book reviews loaded:', this.reviews.length);
+                this.summary = await apiService.getBookSummary(this.bookId);
+                this.reviews = this.summary.recentReviews || [];
             } catch (reviewError) {
-                console.log('No reviews found or reviews endpoint not available:', reviewError);
+                console.log('Book summary not available:', reviewError);
+                this.summary = null;
                 this.reviews = [];
             }
 
@@ -116,6 +119,26 @@ export class BookPage {
         }
     }
 
+    renderHistogram() {
+        const histogram = this.summary.histogram || [];
+        const max = Math.max(1, ...histogram);
+        return `
+            <div class="rating-summary">
+                ${this.summary.averageRating ? `
+                    <div class="rating-summary-average">⭐ ${this.summary.averageRating.toFixed(1)}
+                        (${this.summary.ratingsCount} ratings, ${this.summary.reviewsCount} reviews)</div>
+                ` : ''}
+                ${histogram.map((count, index) => ({ stars: index + 1, count })).reverse().map(({ stars, count }) => `
+                    <div class="rating-summary-row">
+                        <span>${stars}★</span>
+                        <div class="rating-summary-bar"><div style="width: ${Math.round(count * 100 / max)}%"></div></div>
+                        <span>${count}</span>
+                    </div>
+                `).join('')}
+            </div>
+        `;
+    }
+
     renderReviews() {
         return `
             <div class="reviews-list">
@@ -136,7 +159,7 @@ export class BookPage {
                             ` : ''}
                         </div>
                         <div class="review-content">
-                            ${review.comment || 'No comment provided.'}
+                            ${review.text || review.comment || 'No comment provided.'}
                         </div>
                     </div>
                 `).join('')}
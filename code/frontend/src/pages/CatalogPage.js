@@ -28,7 +28,7 @@ export class CatalogPage {
             { value: '0-10', label: 'Up to 10 chapters' },
             { value: '10-50', label: '10 to 50 chapters' },
             { value: '50-100', label: '50 to 100 chapters' },
-            { value: '100+', label: 'More than 100 chapters' }
+            { value: '100+', label: '100 or more chapters' }
         ];
         this.sortOptions = [
             { value: 'title_asc', label: 'Title A-Z' },
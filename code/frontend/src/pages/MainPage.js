@@ -75,25 +75,16 @@ export class MainPage {
 
     async loadReviews() {
         try {
-            // Получаем отзывы из последних книг
-            const reviewPromises = this.latestBooks.slice(0, 3).map(async (book) => {
-                try {
-                    const reviews = await apiService.getBookReviews(book.id, 0, 1);
-                    if (reviews.content && reviews.content.length > 0) {
-                        return {
-                            ...reviews.content[0],
-                            bookTitle: book.title,
-                            bookId: book.id
-                        };
-                    }
-                } catch (error) {
-                    console.error(`Error loading reviews for book ${book.id}:`, error);
-                }
-                return null;
-            });
-
-            const reviews = await Promise.all(reviewPromises);
-            this.latestReviews = reviews.filter(review => review !== null);
+            // Сводки последних книг одним запросом, из каждой берём самый свежий отзыв
+            const books = this.latestBooks.slice(0, 3);
+            const summaries = books.length > 0 ? await apiService.getBookSummaries(books.map(book => book.id)) : [];
+            this.latestReviews = summaries
+                .filter(summary => summary.recentReviews && summary.recentReviews.length > 0)
+                .map(summary => ({
+                    ...summary.recentReviews[0],
+                    bookTitle: books.find(book => book.id === summary.bookId)?.title,
+                    bookId: summary.bookId
+                }));
 
         } catch (error) {
             console.error('Error loading reviews:', error);
@@ -123,7 +114,7 @@ export class MainPage {
                     <strong>${review.bookTitle}</strong>
                     <span class="rating">${'★'.repeat(review.rating)}${'☆'.repeat(5 - review.rating)}</span>
                 </div>
-                <p class="review-comment">"${review.comment || 'No comment provided'}"</p>
+                <p class="review-comment">"${review.text || review.comment || 'No comment provided'}"</p>
                 <div class="review-author">
                     - ${review.userName || 'Anonymous'}
                     ${review.createdAt ? `<span class="review-date">(${new Date(review.createdAt).toLocaleDateString()})</span>` : ''}
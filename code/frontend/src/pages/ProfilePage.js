@@ -161,7 +161,7 @@ export class ProfilePage {
                 ${this.items.map(book => `
                     <div class="item-card" onclick="window.profilePage.navigateToBook(${book.id})">
                         <div class="item-content">
-                            <img src="${book.coverUrl || this.getDefaultBookCover()}" 
+                            <img src="${book.coverThumbnailUrl || book.coverUrl || this.getDefaultBookCover()}" 
                                  alt="${book.title}"
                                  class="item-cover"
                                  onerror="this.src='${this.getDefaultBookCover()}'">
@@ -274,7 +274,7 @@ export class ProfilePage {
     async loadAllData() {
         try {
             // Load all books
-            const booksResult = await apiService.getBooks(0, 200);
+            const booksResult = await apiService.getBooks(0, 100);
             this.allBooks = booksResult.content || [];
             console.log('Loaded books:', this.allBooks.length);
 
@@ -525,7 +525,7 @@ export class ProfilePage {
     getDefaultAvatar() {
         const user = JSON.parse(localStorage.getItem('user') || '{}');
         if (user.avatarUrl) return user.avatarUrl;
-        return `https://ui-avatars.com/api/?name=${encodeURIComponent(user.displayName || user.username || 'User')}&background=random&size=128`;
+        return `/api/avatars?name=${encodeURIComponent(user.displayName || user.username || 'User')}`;
     }
 
     getDefaultBookCover() {
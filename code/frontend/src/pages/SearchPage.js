@@ -12,6 +12,9 @@ export class SearchPage {
         this.totalPages = 0;
         this.totalElements = 0;
         this.hasSearched = false;
+        // Счётчики каталога с сервера (/books/facets) и выбранный жанр в режиме просмотра
+        this.facets = null;
+        this.selectedGenre = null;
     }
 
     async render() {
@@ -118,9 +121,11 @@ export class SearchPage {
             `;
         }
 
+        const total = this.facets ? this.facets.total : this.totalElements;
         return `
+            ${this.renderGenreFacets()}
             <div class="results-info">
-                <p class="results-count">Showing all ${this.books.length} books</p>
+                <p class="results-count">Showing ${this.books.length} of ${total} books${this.selectedGenre ? ` in ${this.selectedGenre}` : ''}</p>
             </div>
             <div class="results-list books-results">
                 ${this.books.map(book => this.renderBookItem(book)).join('')}
@@ -128,6 +133,23 @@ export class SearchPage {
         `;
     }
 
+    renderGenreFacets() {
+        if (!this.facets || !this.facets.genres) return '';
+        const genres = Object.entries(this.facets.genres);
+        if (genres.length === 0) return '';
+
+        return `
+            <div class="facet-list">
+                ${genres.map(([genre, count]) => `
+                    <button class="facet-chip ${genre === this.selectedGenre ? 'active' : ''}"
+                            onclick="window.searchPage.selectGenre('${genre.replace(/'/g, "\\'")}')">
+                        ${genre} <span class="facet-count">${count}</span>
+                    </button>
+                `).join('')}
+            </div>
+        `;
+    }
+
     renderBooksResults() {
         return `
             <div class="results-list books-results">
@@ -170,7 +192,7 @@ export class SearchPage {
         return `
         <div class="result-item book-item" onclick="window.searchPage.navigateToBook(${book.id})">
             <div class="item-content">
-                <img src="${book.coverUrl || this.getDefaultBookCover()}" 
+                <img src="${book.coverThumbnailUrl || book.coverUrl || this.getDefaultBookCover()}" 
                      alt="${book.title}" 
                      class="item-image"
                      onerror="this.src='${this.getDefaultBookCover()}'">
@@ -289,10 +311,21 @@ export class SearchPage {
         this.updateUI();
 
         try {
-            const result = await apiService.getBooks(0, 200);
+            // Жанры и общее число книг берём из фасетов, а книги грузим постранично
+            const [result, facets] = await Promise.all([
+                this.selectedGenre ?
+                    apiService.getFilteredBooks(this.selectedGenre, null, 'title', this.currentPage, this.pageSize) :
+                    apiService.getBooks(this.currentPage, this.pageSize),
+                this.facets ? Promise.resolve(this.facets) : apiService.getBookFacets().catch(error => {
+                    console.error('Error loading book facets:', error);
+                    return null;
+                })
+            ]);
+            this.facets = facets;
             this.books = result.content || [];
-            this.totalElements = this.books.length;
-            console.log('Loaded all books:', this.books.length);
+            this.totalPages = result.totalPages || 1;
+            this.totalElements = result.totalElements || this.books.length;
+            console.log('Loaded books page:', this.currentPage, 'Total:', this.totalElements);
         } catch (error) {
             console.error('Error loading all books:', error);
             this.books = this.getMockBooks();
@@ -303,6 +336,12 @@ export class SearchPage {
         }
     }
 
+    async selectGenre(genre) {
+        this.selectedGenre = this.selectedGenre === genre ? null : genre;
+        this.currentPage = 0;
+        await this.loadAllBooks();
+    }
+
     async performSearch() {
         const searchInput = document.getElementById('searchInput');
         const newSearchQuery = searchInput ? searchInput.value.trim() : '';
@@ -351,6 +390,7 @@ export class SearchPage {
         this.searchQuery = '';
         this.hasSearched = false;
         this.currentPage = 0;
+        this.selectedGenre = null;
         this.books = [];
         this.authors = [];
 
@@ -373,6 +413,7 @@ export class SearchPage {
         this.currentPage = 0;
         this.searchQuery = '';
         this.hasSearched = false;
+        this.selectedGenre = null;
         this.books = [];
         this.authors = [];
         this.totalElements = 0;
@@ -392,6 +433,10 @@ export class SearchPage {
 
     async changePage(page) {
         this.currentPage = page;
+        if (!this.searchQuery && !this.hasSearched) {
+            await this.loadAllBooks();
+            return;
+        }
         await this.performSearch();
     }
 
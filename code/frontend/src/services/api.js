@@ -78,9 +78,21 @@ class ApiService {
         return response.data;
     }
 
+    async getBookFacets(filters = {}) {
+        const response = await this.client.get('/books/facets', { params: filters });
+        return response.data;
+    }
+
     async searchBooks(query, page = 0, size = 20) {
         const response = await this.client.get('/books/search', {
-            params: { query, page, size }
+            params: { query, page, size, mode: 'relevance' }
+        });
+        return response.data;
+    }
+
+    async suggest(q, limit = 10) {
+        const response = await this.client.get('/search/suggest', {
+            params: { q, limit }
         });
         return response.data;
     }
@@ -107,7 +119,7 @@ class ApiService {
 
     async searchAuthors(query, page = 0, size = 20) {
         const response = await this.client.get('/authors/search', {
-            params: { query, page, size }
+            params: { query, page, size, mode: 'relevance' }
         });
         return response.data;
     }
@@ -120,6 +132,19 @@ class ApiService {
         return response.data;
     }
 
+    // Гистограмма, средняя оценка и последние отзывы одним запросом
+    async getBookSummary(bookId) {
+        const response = await this.client.get(`/books/${bookId}/summary`);
+        return response.data;
+    }
+
+    async getBookSummaries(bookIds) {
+        const response = await this.client.get('/books/summaries', {
+            params: { ids: bookIds.join(',') }
+        });
+        return response.data;
+    }
+
     async addReview(bookId, reviewData) {
         const response = await this.client.post(`/books/${bookId}/reviews`, reviewData);
         return response.data;